@@ -0,0 +1,40 @@
+#!/bin/sh
+# Сборка проекта средствами JDK: компилирует src/main/java, копирует src/main/resources и
+# собирает out/cipher.jar.
+#
+# Векторная реализация шифра Виженера из src/main/java-vector компилируется с модулем
+# jdk.incubator.vector, если он есть в JDK; ключ --no-vector отключает этот шаг. Чтобы векторный
+# путь работал, модуль нужно добавить и при запуске:
+#   java --add-modules jdk.incubator.vector -cp out/cipher.jar alex.serov.task2.VigenereCipherImpl
+# Без модуля или без класса векторной реализации шифр работает в скалярном режиме.
+set -e
+cd "$(dirname "$0")"
+
+VECTOR=yes
+for arg in "$@"; do
+  case "$arg" in
+    --no-vector) VECTOR=no ;;
+    *) echo "Usage: $0 [--no-vector]" >&2; exit 2 ;;
+  esac
+done
+
+OUT=out
+CLASSES="$OUT/classes"
+rm -rf "$OUT"
+mkdir -p "$CLASSES"
+
+find src/main/java -name '*.java' > "$OUT/sources.txt"
+javac -encoding UTF-8 -d "$CLASSES" @"$OUT/sources.txt"
+
+if [ "$VECTOR" = yes ] && java --list-modules | grep -q '^jdk.incubator.vector@'; then
+  find src/main/java-vector -name '*.java' > "$OUT/vector-sources.txt"
+  javac -encoding UTF-8 --add-modules jdk.incubator.vector -cp "$CLASSES" -d "$CLASSES" \
+      @"$OUT/vector-sources.txt"
+  echo "Vector kernel compiled; run with --add-modules jdk.incubator.vector to enable it."
+elif [ "$VECTOR" = yes ]; then
+  echo "jdk.incubator.vector is not available; building the scalar version only."
+fi
+
+cp -R src/main/resources/. "$CLASSES"
+jar --create --file "$OUT/cipher.jar" -C "$CLASSES" .
+echo "Built $OUT/cipher.jar"
@@ -0,0 +1,111 @@
+package alex.serov.task2;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Векторная реализация шифра Виженера на jdk.incubator.vector. Символы обрабатываются группами по
+ * {@link #SPECIES} UTF-16 единиц: буквы А..я сдвигаются по модулю 33 с маской регистра, остальные
+ * символы сохраняются. Буквы вне А..я в группе обрабатываются по формуле
+ * {@link VigenereCipherImpl#crypt(char, char, int)}, поэтому результат совпадает со скалярным.
+ * Поддерживаются ключи только из букв А..я. Класс загружается через отражение, см.
+ * {@link VigenereCipherImpl}.
+ *
+ * <p>Класс вынесен в отдельный каталог исходников src/main/java-vector, чтобы основные исходники
+ * компилировались без инкубаторного модуля. Скрипт build.sh компилирует его вторым шагом поверх
+ * основных классов с флагом --add-modules jdk.incubator.vector и включает в out/cipher.jar.
+ */
+final class VigenereVectorKernel implements VigenereKernel {
+
+  private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+  private static final short UPPER_BASE = 'А';
+  private static final short LOWER_BASE = 'а';
+  private static final short END = 'я' + 1;
+
+  private final String key;
+  private final int sign;
+  /**
+   * sign * (key[i] - base) + 33 для строчных и прописных букв; массивы продолжены по кругу на
+   * длину вектора, чтобы загрузка с любой позиции ключа не выходила за границу.
+   */
+  private final short[] lowerShifts;
+  private final short[] upperShifts;
+
+  VigenereVectorKernel(String key, int sign) {
+    if (!isSupported(key)) {
+      throw new IllegalArgumentException("Key should consist of letters А..я.");
+    }
+    this.key = key;
+    this.sign = sign;
+    int length = key.length() + SPECIES.length();
+    this.lowerShifts = new short[length];
+    this.upperShifts = new short[length];
+    for (int i = 0; i < length; i++) {
+      char keySymbol = key.charAt(i % key.length());
+      lowerShifts[i] = (short) (sign * (keySymbol - LOWER_BASE) + 33);
+      upperShifts[i] = (short) (sign * (keySymbol - UPPER_BASE) + 33);
+    }
+  }
+
+  /**
+   * С такими ключами сумма m + sign * k + 33 лежит в [-30, 127], что позволяет заменить остаток
+   * от деления тремя условными вычитаниями.
+   */
+  static boolean isSupported(String key) {
+    if (key.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < key.length(); i++) {
+      char symbol = key.charAt(i);
+      if (symbol < UPPER_BASE || symbol >= END) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void crypt(char[] symbols, int offset, int length, int keyIndex) {
+    int lanes = SPECIES.length();
+    int keyLength = key.length();
+    int end = offset + length;
+    int i = offset;
+    for (; i <= end - lanes; i += lanes) {
+      ShortVector symbol = ShortVector.fromCharArray(SPECIES, symbols, i);
+      VectorMask<Short> letters = symbol.compare(VectorOperators.GE, UPPER_BASE)
+          .and(symbol.compare(VectorOperators.LT, END));
+      VectorMask<Short> lower = symbol.compare(VectorOperators.GE, LOWER_BASE);
+      ShortVector base = ShortVector.broadcast(SPECIES, UPPER_BASE)
+          .blend(LOWER_BASE, lower);
+      ShortVector shift = ShortVector.fromArray(SPECIES, upperShifts, keyIndex)
+          .blend(ShortVector.fromArray(SPECIES, lowerShifts, keyIndex), lower);
+      ShortVector value = symbol.sub(base).add(shift);
+      value = value.sub((short) 33, value.compare(VectorOperators.GE, (short) 33));
+      value = value.sub((short) 33, value.compare(VectorOperators.GE, (short) 33));
+      value = value.sub((short) 33, value.compare(VectorOperators.GE, (short) 33));
+      symbol.blend(value.add(base), letters).intoCharArray(symbols, i);
+
+      // Прочие буквы (латиница, ё и т. п.) остались без изменений, их обрабатывает формула.
+      VectorMask<Short> others = symbol.compare(VectorOperators.UNSIGNED_GE, (short) 'A')
+          .andNot(letters);
+      if (others.anyTrue()) {
+        long bits = others.toLong();
+        while (bits != 0) {
+          int lane = Long.numberOfTrailingZeros(bits);
+          int index = (keyIndex + lane) % keyLength;
+          symbols[i + lane] = VigenereCipherImpl.crypt(symbols[i + lane], key.charAt(index), sign);
+          bits &= bits - 1;
+        }
+      }
+      keyIndex = (keyIndex + lanes) % keyLength;
+    }
+    for (; i < end; i++) {
+      symbols[i] = VigenereCipherImpl.crypt(symbols[i], key.charAt(keyIndex), sign);
+      if (++keyIndex == keyLength) {
+        keyIndex = 0;
+      }
+    }
+  }
+}
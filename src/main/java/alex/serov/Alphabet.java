@@ -0,0 +1,180 @@
+package alex.serov;
+
+import java.util.Arrays;
+
+/**
+ * Упорядоченный алфавит для посимвольных шифров. Каждая буква имеет индекс от 0 до
+ * {@link #size()} - 1; строчная и прописная формы буквы имеют один индекс. Поиск индекса
+ * выполняется за O(1) без выделения памяти: по плотной таблице, если коды букв лежат в небольшом
+ * диапазоне, или по совершенной хеш-таблице для разреженных алфавитов.
+ */
+public final class Alphabet {
+
+  public static final Alphabet LATIN = of("abcdefghijklmnopqrstuvwxyz");
+  public static final Alphabet RUSSIAN = of("абвгдеёжзийклмнопрстуфхцчшщъыьэюя");
+
+  /**
+   * Наибольший диапазон кодов, для которого строится плотная таблица.
+   */
+  static final int MAX_DENSE_SPAN = 4096;
+  private static final int UPPER_CASE = 1;
+
+  private final String letters;
+  private final char[] lowerLetters;
+  private final char[] upperLetters;
+  /**
+   * Код символа: (индекс << 1) | признак прописной буквы, -1 для символов вне алфавита.
+   */
+  private final int[] codes;
+  private final int first;
+  private final char[] keys;
+  private final int modulus;
+
+  private Alphabet(String letters, char[] lowerLetters, char[] upperLetters, int[] codes,
+      int first, char[] keys, int modulus) {
+    this.letters = letters;
+    this.lowerLetters = lowerLetters;
+    this.upperLetters = upperLetters;
+    this.codes = codes;
+    this.first = first;
+    this.keys = keys;
+    this.modulus = modulus;
+  }
+
+  /**
+   * Создает алфавит из букв в заданном порядке. Регистр букв в строке не важен.
+   *
+   * @param letters буквы алфавита без повторов.
+   * @return алфавит.
+   */
+  public static Alphabet of(String letters) {
+    if (letters.isEmpty()) {
+      throw new IllegalArgumentException("Alphabet should not be empty.");
+    }
+    int size = letters.length();
+    char[] lowerLetters = new char[size];
+    char[] upperLetters = new char[size];
+    for (int i = 0; i < size; i++) {
+      lowerLetters[i] = Character.toLowerCase(letters.charAt(i));
+      upperLetters[i] = Character.toUpperCase(letters.charAt(i));
+      if (lowerLetters[i] == 0) {
+        throw new IllegalArgumentException("Alphabet should not contain '\\0'.");
+      }
+    }
+    char[] symbols = new char[2 * size];
+    int[] symbolCodes = new int[2 * size];
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      symbols[count] = lowerLetters[i];
+      symbolCodes[count++] = i << 1;
+      if (upperLetters[i] != lowerLetters[i]) {
+        symbols[count] = upperLetters[i];
+        symbolCodes[count++] = i << 1 | UPPER_CASE;
+      }
+    }
+    char min = Character.MAX_VALUE;
+    char max = 0;
+    for (int i = 0; i < count; i++) {
+      min = (char) Math.min(min, symbols[i]);
+      max = (char) Math.max(max, symbols[i]);
+    }
+    String normalized = new String(lowerLetters);
+    if (max - min < MAX_DENSE_SPAN) {
+      int[] codes = new int[max - min + 1];
+      Arrays.fill(codes, -1);
+      for (int i = 0; i < count; i++) {
+        checkUnique(codes[symbols[i] - min], symbols[i]);
+        codes[symbols[i] - min] = symbolCodes[i];
+      }
+      return new Alphabet(normalized, lowerLetters, upperLetters, codes, min, null, 0);
+    }
+    // Наименьший модуль, при котором символы не сталкиваются; при max + 1 коллизий нет всегда.
+    for (int modulus = count; ; modulus++) {
+      char[] keys = new char[modulus];
+      int[] codes = new int[modulus];
+      Arrays.fill(codes, -1);
+      boolean collision = false;
+      for (int i = 0; i < count && !collision; i++) {
+        int slot = symbols[i] % modulus;
+        if (codes[slot] >= 0) {
+          checkUnique(keys[slot] == symbols[i] ? codes[slot] : -1, symbols[i]);
+          collision = true;
+        }
+        keys[slot] = symbols[i];
+        codes[slot] = symbolCodes[i];
+      }
+      if (!collision) {
+        return new Alphabet(normalized, lowerLetters, upperLetters, codes, 0, keys, modulus);
+      }
+    }
+  }
+
+  private static void checkUnique(int existingCode, char symbol) {
+    if (existingCode >= 0) {
+      throw new IllegalArgumentException("Duplicate letter in alphabet: " + symbol);
+    }
+  }
+
+  private int codeOf(char symbol) {
+    if (keys == null) {
+      int index = symbol - first;
+      return index >= 0 && index < codes.length ? codes[index] : -1;
+    }
+    int slot = symbol % modulus;
+    return keys[slot] == symbol ? codes[slot] : -1;
+  }
+
+  public int size() {
+    return lowerLetters.length;
+  }
+
+  /**
+   * @return буквы алфавита в нижнем регистре.
+   */
+  public String getLetters() {
+    return letters;
+  }
+
+  public boolean contains(char symbol) {
+    return codeOf(symbol) >= 0;
+  }
+
+  /**
+   * @param symbol символ в любом регистре.
+   * @return индекс буквы или -1, если символа нет в алфавите.
+   */
+  public int indexOf(char symbol) {
+    return codeOf(symbol) >> 1;
+  }
+
+  /**
+   * @return буква с заданным индексом в нижнем регистре.
+   */
+  public char letterAt(int index) {
+    return lowerLetters[index];
+  }
+
+  /**
+   * Сдвигает букву по алфавиту по кругу с сохранением регистра.
+   *
+   * @param symbol   символ.
+   * @param distance сдвиг из [0, {@link #size()}).
+   * @return сдвинутая буква или сам символ, если его нет в алфавите.
+   */
+  public char shift(char symbol, int distance) {
+    int code = codeOf(symbol);
+    if (code < 0) {
+      return symbol;
+    }
+    int index = (code >> 1) + distance;
+    if (index >= lowerLetters.length) {
+      index -= lowerLetters.length;
+    }
+    return (code & UPPER_CASE) != 0 ? upperLetters[index] : lowerLetters[index];
+  }
+
+  @Override
+  public String toString() {
+    return letters;
+  }
+}
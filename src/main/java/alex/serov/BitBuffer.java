@@ -0,0 +1,269 @@
+package alex.serov;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Упакованная последовательность бит на основе long[]. Бит с индексом 0 является старшим битом
+ * первого байта, то есть порядок бит совпадает со строковым представлением из
+ * {@link BitConversion}, но каждый бит занимает один бит памяти, а не символ. Слова шириной до 64
+ * бит читаются и записываются с любого битового смещения. Кроме того, класс содержит статические
+ * методы чтения слов из byte[] в заданном порядке байтов и циклического сдвига слов произвольной
+ * ширины.
+ */
+public final class BitBuffer {
+
+  private static final VarHandle SHORT_BIG_ENDIAN =
+      MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle SHORT_LITTLE_ENDIAN =
+      MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INT_BIG_ENDIAN =
+      MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle INT_LITTLE_ENDIAN =
+      MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONG_BIG_ENDIAN =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG_LITTLE_ENDIAN =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final long[] words;
+  private final int bitLength;
+
+  private BitBuffer(int bitLength) {
+    this.words = new long[(bitLength + Long.SIZE - 1) / Long.SIZE];
+    this.bitLength = bitLength;
+  }
+
+  /**
+   * @param bitLength количество бит.
+   * @return буфер из нулевых бит.
+   */
+  public static BitBuffer allocate(int bitLength) {
+    if (bitLength < 0) {
+      throw new IllegalArgumentException("Bit length should not be negative.");
+    }
+    return new BitBuffer(bitLength);
+  }
+
+  /**
+   * @param bytes байты, копируемые в буфер.
+   * @return буфер длиной 8 * bytes.length бит.
+   */
+  public static BitBuffer wrap(byte[] bytes) {
+    BitBuffer buffer = allocate(Math.multiplyExact(bytes.length, Byte.SIZE));
+    for (int i = 0; i < bytes.length; i++) {
+      buffer.words[i >>> 3] |= (bytes[i] & 0xFFL) << (56 - 8 * (i & 7));
+    }
+    return buffer;
+  }
+
+  /**
+   * @return байты буфера; неполный последний байт дополняется нулевыми битами.
+   */
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[(bitLength + Byte.SIZE - 1) / Byte.SIZE];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) (words[i >>> 3] >>> (56 - 8 * (i & 7)));
+    }
+    return bytes;
+  }
+
+  public int bitLength() {
+    return bitLength;
+  }
+
+  public boolean getBit(int index) {
+    checkRange(index, 1);
+    return words[index >>> 6] << index < 0;
+  }
+
+  public void setBit(int index, boolean value) {
+    checkRange(index, 1);
+    long bit = Long.MIN_VALUE >>> index;
+    if (value) {
+      words[index >>> 6] |= bit;
+    } else {
+      words[index >>> 6] &= ~bit;
+    }
+  }
+
+  /**
+   * Читает width бит, начиная с index; первый бит становится старшим.
+   *
+   * @param index индекс первого бита.
+   * @param width количество бит от 1 до 64.
+   * @return значение в младших width битах.
+   */
+  public long getBits(int index, int width) {
+    checkRange(index, width);
+    int word = index >>> 6;
+    int shift = index & 63;
+    long value = words[word] << shift;
+    if (shift + width > Long.SIZE) {
+      value |= words[word + 1] >>> (Long.SIZE - shift);
+    }
+    return value >>> (Long.SIZE - width);
+  }
+
+  /**
+   * Записывает младшие width бит value, начиная с index; старший из них попадает в index.
+   *
+   * @param index индекс первого бита.
+   * @param width количество бит от 1 до 64.
+   * @param value значение.
+   */
+  public void putBits(int index, int width, long value) {
+    checkRange(index, width);
+    int word = index >>> 6;
+    int shift = index & 63;
+    long mask = -1L << (Long.SIZE - width);
+    long aligned = value << (Long.SIZE - width);
+    words[word] = words[word] & ~(mask >>> shift) | aligned >>> shift;
+    if (shift + width > Long.SIZE) {
+      words[word + 1] = words[word + 1] & ~(mask << (Long.SIZE - shift))
+          | aligned << (Long.SIZE - shift);
+    }
+  }
+
+  public short getShort(int index, ByteOrder order) {
+    short value = (short) getBits(index, Short.SIZE);
+    return order == ByteOrder.BIG_ENDIAN ? value : Short.reverseBytes(value);
+  }
+
+  public void putShort(int index, short value, ByteOrder order) {
+    putBits(index, Short.SIZE, order == ByteOrder.BIG_ENDIAN ? value : Short.reverseBytes(value));
+  }
+
+  public int getInt(int index, ByteOrder order) {
+    int value = (int) getBits(index, Integer.SIZE);
+    return order == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+  }
+
+  public void putInt(int index, int value, ByteOrder order) {
+    putBits(index, Integer.SIZE,
+        order == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value));
+  }
+
+  public long getLong(int index, ByteOrder order) {
+    long value = getBits(index, Long.SIZE);
+    return order == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+  }
+
+  public void putLong(int index, long value, ByteOrder order) {
+    putBits(index, Long.SIZE, order == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value));
+  }
+
+  private void checkRange(int index, int width) {
+    if (width < 1 || width > Long.SIZE) {
+      throw new IllegalArgumentException("Width should be between 1 and 64.");
+    }
+    if (index < 0 || index > bitLength - width) {
+      throw new IndexOutOfBoundsException("Bits " + index + ".." + (index + width)
+          + " are out of range for length " + bitLength);
+    }
+  }
+
+  /**
+   * @return строка из символов '0' и '1'.
+   */
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder(bitLength);
+    for (int i = 0; i < bitLength; i++) {
+      result.append(getBit(i) ? '1' : '0');
+    }
+    return result.toString();
+  }
+
+  public static short getShort(byte[] bytes, int offset, ByteOrder order) {
+    return order == ByteOrder.BIG_ENDIAN
+        ? (short) SHORT_BIG_ENDIAN.get(bytes, offset)
+        : (short) SHORT_LITTLE_ENDIAN.get(bytes, offset);
+  }
+
+  public static void putShort(byte[] bytes, int offset, short value, ByteOrder order) {
+    if (order == ByteOrder.BIG_ENDIAN) {
+      SHORT_BIG_ENDIAN.set(bytes, offset, value);
+    } else {
+      SHORT_LITTLE_ENDIAN.set(bytes, offset, value);
+    }
+  }
+
+  public static int getInt(byte[] bytes, int offset, ByteOrder order) {
+    return order == ByteOrder.BIG_ENDIAN
+        ? (int) INT_BIG_ENDIAN.get(bytes, offset)
+        : (int) INT_LITTLE_ENDIAN.get(bytes, offset);
+  }
+
+  public static void putInt(byte[] bytes, int offset, int value, ByteOrder order) {
+    if (order == ByteOrder.BIG_ENDIAN) {
+      INT_BIG_ENDIAN.set(bytes, offset, value);
+    } else {
+      INT_LITTLE_ENDIAN.set(bytes, offset, value);
+    }
+  }
+
+  public static long getLong(byte[] bytes, int offset, ByteOrder order) {
+    return order == ByteOrder.BIG_ENDIAN
+        ? (long) LONG_BIG_ENDIAN.get(bytes, offset)
+        : (long) LONG_LITTLE_ENDIAN.get(bytes, offset);
+  }
+
+  public static void putLong(byte[] bytes, int offset, long value, ByteOrder order) {
+    if (order == ByteOrder.BIG_ENDIAN) {
+      LONG_BIG_ENDIAN.set(bytes, offset, value);
+    } else {
+      LONG_LITTLE_ENDIAN.set(bytes, offset, value);
+    }
+  }
+
+  /**
+   * Циклический сдвиг влево слова шириной width бит, хранящегося в младших битах int. Величина
+   * сдвига берется по модулю width; для ширины, равной степени двойки, это младшие lg(width) бит,
+   * как в RC5.
+   *
+   * @param value    слово; биты старше width должны быть нулевыми.
+   * @param distance величина сдвига.
+   * @param width    ширина слова от 1 до 32.
+   * @return сдвинутое слово.
+   */
+  public static int rotateLeft(int value, int distance, int width) {
+    if (width == Integer.SIZE) {
+      return Integer.rotateLeft(value, distance);
+    }
+    distance = reduce(distance, width);
+    return (value << distance | value >>> (width - distance)) & ((1 << width) - 1);
+  }
+
+  public static int rotateRight(int value, int distance, int width) {
+    if (width == Integer.SIZE) {
+      return Integer.rotateRight(value, distance);
+    }
+    return rotateLeft(value, width - reduce(distance, width), width);
+  }
+
+  /**
+   * Циклический сдвиг влево слова шириной width бит, хранящегося в младших битах long.
+   *
+   * @see #rotateLeft(int, int, int)
+   */
+  public static long rotateLeft(long value, int distance, int width) {
+    if (width == Long.SIZE) {
+      return Long.rotateLeft(value, distance);
+    }
+    distance = reduce(distance, width);
+    return (value << distance | value >>> (width - distance)) & ((1L << width) - 1);
+  }
+
+  public static long rotateRight(long value, int distance, int width) {
+    if (width == Long.SIZE) {
+      return Long.rotateRight(value, distance);
+    }
+    return rotateLeft(value, width - reduce(distance, width), width);
+  }
+
+  private static int reduce(int distance, int width) {
+    return (width & (width - 1)) == 0 ? distance & (width - 1) : Math.floorMod(distance, width);
+  }
+}
@@ -1,5 +1,10 @@
 package alex.serov;
 
+/**
+ * Преобразования между строками и битовыми представлениями. Каждый символ строки соответствует
+ * одному байту, поэтому допустимы только символы от 0 до 0xFF. Строки из '0' и '1' расходуют по
+ * символу на бит; для работы с данными предназначен упакованный {@link BitBuffer}.
+ */
 public interface BitConversion {
 
   static String getRepeat(String result, int size) {
@@ -7,12 +12,7 @@ public interface BitConversion {
   }
 
   static String stringToBinary(String input) {
-    StringBuilder result = new StringBuilder();
-    for (char c : input.toCharArray()) {
-      String binaryChar = Integer.toBinaryString(c);
-      result.append("0".repeat(8 - binaryChar.length())).append(binaryChar);
-    }
-    return result.toString();
+    return stringToBits(input).toString();
   }
 
   static String binaryToString(String binary) {
@@ -25,4 +25,36 @@ public interface BitConversion {
     return result.toString();
   }
 
+  /**
+   * @param input строка из символов не больше 0xFF.
+   * @return буфер, в котором каждый символ занимает 8 бит.
+   * @throws IllegalArgumentException если символ не помещается в байт.
+   */
+  static BitBuffer stringToBits(String input) {
+    BitBuffer bits = BitBuffer.allocate(Math.multiplyExact(input.length(), Byte.SIZE));
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (c > 0xFF) {
+        throw new IllegalArgumentException(
+            "Symbol " + c + " at index " + i + " does not fit into a byte.");
+      }
+      bits.putBits(i * Byte.SIZE, Byte.SIZE, c);
+    }
+    return bits;
+  }
+
+  /**
+   * @param bits биты, длина которых кратна 8.
+   * @return строка, в которой каждый байт стал символом.
+   */
+  static String bitsToString(BitBuffer bits) {
+    if (bits.bitLength() % Byte.SIZE != 0) {
+      throw new IllegalArgumentException("Bit length should be a multiple of 8.");
+    }
+    char[] result = new char[bits.bitLength() / Byte.SIZE];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = (char) bits.getBits(i * Byte.SIZE, Byte.SIZE);
+    }
+    return new String(result);
+  }
 }
@@ -0,0 +1,52 @@
+package alex.serov;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Сеанс для шифров, которым нужен весь текст сразу: данные накапливаются и обрабатываются целиком
+ * при завершении сеанса.
+ */
+final class BufferedCipherSession implements CipherSession {
+
+  private final Cipher cipher;
+  private final boolean isEncrypt;
+  private byte[] buffer = new byte[TextCodec.CHUNK_SIZE];
+  private int size;
+
+  BufferedCipherSession(Cipher cipher, boolean isEncrypt) {
+    this.cipher = cipher;
+    this.isEncrypt = isEncrypt;
+  }
+
+  @Override
+  public int update(ByteBuffer src, ByteBuffer dst) {
+    int length = src.remaining();
+    if (buffer.length - size < length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, Math.addExact(size, length)));
+    }
+    src.get(buffer, size, length);
+    size += length;
+    return 0;
+  }
+
+  @Override
+  public int doFinal(ByteBuffer dst) {
+    ByteBuffer src = ByteBuffer.wrap(buffer, 0, size);
+    return isEncrypt ? cipher.encrypt(src, dst) : cipher.decrypt(src, dst);
+  }
+
+  @Override
+  public int getOutputSize(int length) {
+    int total = Math.addExact(size, length);
+    return isEncrypt ? cipher.getEncryptedSize(total) : cipher.getDecryptedSize(total);
+  }
+
+  /**
+   * update только накапливает данные и ничего не записывает.
+   */
+  @Override
+  public int getUpdateOutputSize(int length) {
+    return 0;
+  }
+}
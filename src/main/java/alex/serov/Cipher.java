@@ -1,7 +1,12 @@
 package alex.serov;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Интерфейс Cipher представляет общий контракт для шифрования и дешифрования сообщений.
+ * Помимо строкового контракта шифр работает с байтами напрямую: строковые методы реализаций
+ * являются тонкими адаптерами над байтовыми.
  */
 public interface Cipher {
 
@@ -20,4 +25,88 @@ public interface Cipher {
    * @return дешифрованное сообщение.
    */
   String decrypt(String message);
+
+  /**
+   * Шифрует все оставшиеся байты src и записывает результат в dst, начиная с его позиции.
+   *
+   * @param src исходные данные.
+   * @param dst буфер для результата, в нем должно быть не меньше
+   *            {@link #getEncryptedSize(int)} свободных байтов.
+   * @return количество записанных в dst байтов.
+   * @throws java.nio.BufferOverflowException если в dst недостаточно места.
+   */
+  int encrypt(ByteBuffer src, ByteBuffer dst);
+
+  /**
+   * Дешифрует все оставшиеся байты src и записывает результат в dst, начиная с его позиции.
+   *
+   * @param src зашифрованные данные.
+   * @param dst буфер для результата, в нем должно быть не меньше
+   *            {@link #getDecryptedSize(int)} свободных байтов.
+   * @return количество записанных в dst байтов.
+   * @throws java.nio.BufferOverflowException если в dst недостаточно места.
+   */
+  int decrypt(ByteBuffer src, ByteBuffer dst);
+
+  /**
+   * @param length длина исходных данных в байтах.
+   * @return максимальная длина результата шифрования.
+   */
+  int getEncryptedSize(int length);
+
+  /**
+   * @param length длина зашифрованных данных в байтах.
+   * @return максимальная длина результата дешифрования.
+   */
+  int getDecryptedSize(int length);
+
+  default int encrypt(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+    return encrypt(ByteBuffer.wrap(input, offset, length),
+        ByteBuffer.wrap(output, outputOffset, output.length - outputOffset));
+  }
+
+  default int decrypt(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+    return decrypt(ByteBuffer.wrap(input, offset, length),
+        ByteBuffer.wrap(output, outputOffset, output.length - outputOffset));
+  }
+
+  default byte[] encrypt(byte[] input, int offset, int length) {
+    byte[] output = new byte[getEncryptedSize(length)];
+    int written = encrypt(input, offset, length, output, 0);
+    return written == output.length ? output : Arrays.copyOf(output, written);
+  }
+
+  default byte[] decrypt(byte[] input, int offset, int length) {
+    byte[] output = new byte[getDecryptedSize(length)];
+    int written = decrypt(input, offset, length, output, 0);
+    return written == output.length ? output : Arrays.copyOf(output, written);
+  }
+
+  default byte[] encrypt(byte[] input) {
+    return encrypt(input, 0, input.length);
+  }
+
+  default byte[] decrypt(byte[] input) {
+    return decrypt(input, 0, input.length);
+  }
+
+  /**
+   * Открывает сеанс пошагового шифрования. По умолчанию данные накапливаются и шифруются целиком
+   * при завершении сеанса; шифры, умеющие работать порциями, переопределяют этот метод.
+   *
+   * @return новый сеанс шифрования.
+   */
+  default CipherSession newEncryptSession() {
+    return new BufferedCipherSession(this, true);
+  }
+
+  /**
+   * Открывает сеанс пошагового дешифрования.
+   *
+   * @return новый сеанс дешифрования.
+   * @see #newEncryptSession()
+   */
+  default CipherSession newDecryptSession() {
+    return new BufferedCipherSession(this, false);
+  }
 }
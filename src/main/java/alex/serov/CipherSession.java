@@ -0,0 +1,50 @@
+package alex.serov;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Сеанс пошагового шифрования или дешифрования. Данные подаются порциями произвольного размера,
+ * а состояние на границах порций (незавершенный блок, смещение по ключу, неполный символ UTF-8)
+ * сохраняется внутри сеанса. Сеанс не предназначен для повторного использования и не является
+ * потокобезопасным.
+ */
+public interface CipherSession {
+
+  /**
+   * Обрабатывает все оставшиеся байты src.
+   *
+   * @param src очередная порция данных.
+   * @param dst буфер для результата, в нем должно быть не меньше
+   *            {@link #getUpdateOutputSize(int)} свободных байтов.
+   * @return количество записанных в dst байтов.
+   * @throws java.nio.BufferOverflowException если в dst недостаточно места.
+   */
+  int update(ByteBuffer src, ByteBuffer dst);
+
+  /**
+   * Завершает сеанс, обрабатывая накопленный остаток.
+   *
+   * @param dst буфер для результата, в нем должно быть не меньше {@code getOutputSize(0)}
+   *            свободных байтов.
+   * @return количество записанных в dst байтов.
+   */
+  int doFinal(ByteBuffer dst);
+
+  /**
+   * @param length длина очередной порции в байтах.
+   * @return максимальное количество байтов, которое запишут update и doFinal с учетом накопленного
+   * остатка.
+   */
+  int getOutputSize(int length);
+
+  /**
+   * Размер буфера для очередного вызова update. Сеансы, накапливающие данные до doFinal,
+   * возвращают меньше {@link #getOutputSize(int)}, чтобы буфер не рос с объемом входа.
+   *
+   * @param length длина очередной порции в байтах.
+   * @return максимальное количество байтов, которое запишет update.
+   */
+  default int getUpdateOutputSize(int length) {
+    return getOutputSize(length);
+  }
+}
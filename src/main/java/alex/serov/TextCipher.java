@@ -0,0 +1,77 @@
+package alex.serov;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Шифр, преобразующий текст посимвольно. Реализации работают с массивом символов на месте, а
+ * строковый и байтовый контракты {@link Cipher} выражены через него. В байтовом виде текст
+ * представлен в кодировке UTF-8.
+ */
+public interface TextCipher extends Cipher {
+
+  /**
+   * Шифрует символы symbols[offset..offset + length) на месте.
+   *
+   * @param symbols  массив символов.
+   * @param offset   индекс первого символа.
+   * @param length   количество символов.
+   * @param position номер первого символа в сообщении.
+   */
+  void encrypt(char[] symbols, int offset, int length, long position);
+
+  /**
+   * Дешифрует символы symbols[offset..offset + length) на месте.
+   *
+   * @param symbols  массив символов.
+   * @param offset   индекс первого символа.
+   * @param length   количество символов.
+   * @param position номер первого символа в сообщении.
+   */
+  void decrypt(char[] symbols, int offset, int length, long position);
+
+  @Override
+  default String encrypt(String message) {
+    char[] symbols = message.toCharArray();
+    encrypt(symbols, 0, symbols.length, 0);
+    return new String(symbols);
+  }
+
+  @Override
+  default String decrypt(String message) {
+    char[] symbols = message.toCharArray();
+    decrypt(symbols, 0, symbols.length, 0);
+    return new String(symbols);
+  }
+
+  @Override
+  default int encrypt(ByteBuffer src, ByteBuffer dst) {
+    CipherSession session = newEncryptSession();
+    return session.update(src, dst) + session.doFinal(dst);
+  }
+
+  @Override
+  default int decrypt(ByteBuffer src, ByteBuffer dst) {
+    CipherSession session = newDecryptSession();
+    return session.update(src, dst) + session.doFinal(dst);
+  }
+
+  @Override
+  default CipherSession newEncryptSession() {
+    return new TextCipherSession(this, true);
+  }
+
+  @Override
+  default CipherSession newDecryptSession() {
+    return new TextCipherSession(this, false);
+  }
+
+  @Override
+  default int getEncryptedSize(int length) {
+    return TextCodec.getMaxEncodedSize(length);
+  }
+
+  @Override
+  default int getDecryptedSize(int length) {
+    return TextCodec.getMaxEncodedSize(length);
+  }
+}
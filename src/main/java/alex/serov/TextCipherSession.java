@@ -0,0 +1,96 @@
+package alex.serov;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Сеанс посимвольного шифра над текстом в UTF-8. Символы декодируются порциями в буфер
+ * фиксированного размера, преобразуются на месте и сразу кодируются в выходной буфер. Номер
+ * символа в сообщении и незавершенная последовательность UTF-8 переносятся между порциями.
+ */
+final class TextCipherSession implements CipherSession {
+
+  private final TextCipher cipher;
+  private final boolean isEncrypt;
+  private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  private final CharBuffer chars = CharBuffer.allocate(TextCodec.CHUNK_SIZE);
+  // Байты символа UTF-8, разрезанного границей порций.
+  private final ByteBuffer pending = ByteBuffer.allocate(4);
+  private long position;
+
+  TextCipherSession(TextCipher cipher, boolean isEncrypt) {
+    this.cipher = cipher;
+    this.isEncrypt = isEncrypt;
+  }
+
+  @Override
+  public int update(ByteBuffer src, ByteBuffer dst) {
+    int start = dst.position();
+    while (pending.position() > 0 && src.hasRemaining()) {
+      pending.put(src.get()).flip();
+      decode(pending, dst);
+      pending.compact();
+    }
+    decode(src, dst);
+    pending.put(src);
+    return dst.position() - start;
+  }
+
+  @Override
+  public int doFinal(ByteBuffer dst) {
+    if (pending.position() > 0) {
+      throw new IllegalArgumentException("Незавершенная последовательность UTF-8 в конце данных.");
+    }
+    int start = dst.position();
+    drain(dst);
+    TextCodec.check(encoder.encode(chars.limit(0), dst, true));
+    TextCodec.check(encoder.flush(dst));
+    return dst.position() - start;
+  }
+
+  /**
+   * Учитывает не только новые и отложенные байты, но и символы, уже декодированные в буфер
+   * порции: они кодируются в выходной буфер при его переполнении или в {@link #doFinal}.
+   */
+  @Override
+  public int getOutputSize(int length) {
+    return TextCodec.getMaxEncodedSize(
+        Math.addExact(Math.addExact(length, pending.position()), chars.position()));
+  }
+
+  /**
+   * Декодирует src, пока в нем есть полные символы. Неполная последовательность остается в src.
+   */
+  private void decode(ByteBuffer src, ByteBuffer dst) {
+    CoderResult result;
+    do {
+      result = decoder.decode(src, chars, false);
+      if (result.isError()) {
+        TextCodec.check(result);
+      }
+      if (result.isOverflow()) {
+        drain(dst);
+      }
+    } while (result.isOverflow());
+  }
+
+  /**
+   * Преобразует накопленные символы шифром и кодирует их в dst.
+   */
+  private void drain(ByteBuffer dst) {
+    chars.flip();
+    if (isEncrypt) {
+      cipher.encrypt(chars.array(), 0, chars.limit(), position);
+    } else {
+      cipher.decrypt(chars.array(), 0, chars.limit(), position);
+    }
+    position += chars.limit();
+    TextCodec.check(encoder.encode(chars, dst, false));
+    chars.clear();
+  }
+}
@@ -0,0 +1,72 @@
+package alex.serov;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Преобразования между байтами в UTF-8 и символами для текстовых шифров. Текст обрабатывается
+ * порциями фиксированного размера без построения промежуточных строк.
+ */
+public interface TextCodec {
+
+  int CHUNK_SIZE = 8192;
+
+  /**
+   * Каждый символ UTF-16 занимает в UTF-8 не меньше одного и не больше трех байтов, поэтому
+   * посимвольное преобразование увеличивает данные не более чем втрое.
+   *
+   * @param length длина исходных данных в байтах.
+   * @return максимальная длина результата в байтах.
+   */
+  static int getMaxEncodedSize(int length) {
+    return Math.multiplyExact(length, 3);
+  }
+
+  /**
+   * Декодирует все оставшиеся байты src из UTF-8.
+   *
+   * @param src данные в UTF-8.
+   * @return строка.
+   */
+  static String decode(ByteBuffer src) {
+    try {
+      return StandardCharsets.UTF_8.newDecoder().decode(src).toString();
+    } catch (CharacterCodingException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Кодирует текст в UTF-8 и записывает результат в dst.
+   *
+   * @param text текст.
+   * @param dst  буфер для результата.
+   * @return количество записанных в dst байтов.
+   */
+  static int encode(CharSequence text, ByteBuffer dst) {
+    CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    int start = dst.position();
+    check(encoder.encode(CharBuffer.wrap(text), dst, true));
+    check(encoder.flush(dst));
+    return dst.position() - start;
+  }
+
+  /**
+   * Переводит результат кодирования в исключение: переполнение выходного буфера в
+   * {@link BufferOverflowException}, некорректные данные в {@link IllegalArgumentException}.
+   */
+  static void check(CoderResult result) {
+    if (result.isOverflow()) {
+      throw new BufferOverflowException();
+    }
+    if (result.isError()) {
+      throw new IllegalArgumentException("Некорректная последовательность UTF-8: " + result);
+    }
+  }
+}
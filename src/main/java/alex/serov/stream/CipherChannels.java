@@ -0,0 +1,79 @@
+package alex.serov.stream;
+
+import alex.serov.CipherSession;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Пошаговое преобразование данных между каналами. Чтение и запись идут через прямые буферы
+ * фиксированного размера, поэтому объем данных ограничен только размером файлов.
+ */
+public interface CipherChannels {
+
+  int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Читает source до конца, обрабатывает данные сеансом и записывает результат в target.
+   *
+   * @param source  канал с исходными данными.
+   * @param target  канал для результата.
+   * @param session сеанс шифрования или дешифрования.
+   * @return количество записанных байтов.
+   * @throws IOException при ошибке ввода-вывода.
+   */
+  static long transform(ReadableByteChannel source, WritableByteChannel target,
+      CipherSession session) throws IOException {
+    ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    ByteBuffer out = ByteBuffer.allocateDirect(session.getUpdateOutputSize(BUFFER_SIZE));
+    long written = 0;
+    while (source.read(in) >= 0) {
+      in.flip();
+      out = prepareBuffer(out, session.getUpdateOutputSize(in.remaining()));
+      session.update(in, out);
+      written += writeFully(target, out);
+      in.clear();
+    }
+    out = prepareBuffer(out, session.getOutputSize(0));
+    session.doFinal(out);
+    written += writeFully(target, out);
+    return written;
+  }
+
+  /**
+   * Преобразует файл source в файл target, создавая или перезаписывая его.
+   *
+   * @param source  исходный файл.
+   * @param target  файл для результата.
+   * @param session сеанс шифрования или дешифрования.
+   * @return количество записанных байтов.
+   * @throws IOException при ошибке ввода-вывода.
+   */
+  static long transform(Path source, Path target, CipherSession session) throws IOException {
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+        FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      return transform(in, out, session);
+    }
+  }
+
+  private static ByteBuffer prepareBuffer(ByteBuffer buffer, int size) {
+    if (buffer.capacity() < size) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    return buffer.clear();
+  }
+
+  private static int writeFully(WritableByteChannel target, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    int written = buffer.remaining();
+    while (buffer.hasRemaining()) {
+      target.write(buffer);
+    }
+    return written;
+  }
+}
@@ -0,0 +1,108 @@
+package alex.serov.stream;
+
+import alex.serov.CipherSession;
+import alex.serov.TextCodec;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Поток, читающий данные из нижележащего потока порциями фиксированного размера и отдающий их
+ * шифрованными (или дешифрованными) сеансом {@link CipherSession}. Расход памяти не зависит от
+ * объема данных.
+ */
+public class CipherInputStream extends FilterInputStream {
+
+  private final CipherSession session;
+  private final byte[] chunk = new byte[TextCodec.CHUNK_SIZE];
+  private ByteBuffer buffer = ByteBuffer.allocate(0);
+  private boolean finished;
+
+  public CipherInputStream(InputStream in, CipherSession session) {
+    super(in);
+    this.session = session;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return buffer.get() & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    int n = Math.min(len, buffer.remaining());
+    buffer.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n && fill()) {
+      int step = (int) Math.min(n - skipped, buffer.remaining());
+      buffer.position(buffer.position() + step);
+      skipped += step;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public synchronized void mark(int readlimit) {
+  }
+
+  @Override
+  public synchronized void reset() throws IOException {
+    throw new IOException("mark/reset not supported");
+  }
+
+  /**
+   * Читает порции из нижележащего потока, пока сеанс не выдаст данные или поток не закончится.
+   *
+   * @return false, если данных больше нет.
+   */
+  private boolean fill() throws IOException {
+    while (!buffer.hasRemaining()) {
+      if (finished) {
+        return false;
+      }
+      int n = in.read(chunk);
+      if (n < 0) {
+        finished = true;
+        prepareBuffer(session.getOutputSize(0));
+        session.doFinal(buffer);
+      } else {
+        prepareBuffer(session.getUpdateOutputSize(n));
+        session.update(ByteBuffer.wrap(chunk, 0, n), buffer);
+      }
+      buffer.flip();
+    }
+    return true;
+  }
+
+  private void prepareBuffer(int size) {
+    if (buffer.capacity() < size) {
+      buffer = ByteBuffer.allocate(size);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,69 @@
+package alex.serov.stream;
+
+import alex.serov.CipherSession;
+import alex.serov.TextCodec;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Поток, шифрующий (или дешифрующий) записываемые данные сеансом {@link CipherSession} и
+ * передающий результат в нижележащий поток. Данные обрабатываются порциями фиксированного
+ * размера, поэтому расход памяти не зависит от объема записи. Остаток сеанса записывается при
+ * закрытии потока.
+ */
+public class CipherOutputStream extends FilterOutputStream {
+
+  private final CipherSession session;
+  private final byte[] single = new byte[1];
+  private ByteBuffer buffer = ByteBuffer.allocate(0);
+  private boolean closed;
+
+  public CipherOutputStream(OutputStream out, CipherSession session) {
+    super(out);
+    this.session = session;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    single[0] = (byte) b;
+    write(single, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    while (len > 0) {
+      int n = Math.min(len, TextCodec.CHUNK_SIZE);
+      ByteBuffer dst = prepareBuffer(session.getUpdateOutputSize(n));
+      session.update(ByteBuffer.wrap(b, off, n), dst);
+      out.write(dst.array(), 0, dst.position());
+      off += n;
+      len -= n;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try (OutputStream target = out) {
+      ByteBuffer dst = prepareBuffer(session.getOutputSize(0));
+      session.doFinal(dst);
+      target.write(dst.array(), 0, dst.position());
+      target.flush();
+    }
+  }
+
+  private ByteBuffer prepareBuffer(int size) {
+    if (buffer.capacity() < size) {
+      buffer = ByteBuffer.allocate(size);
+    }
+    return buffer.clear();
+  }
+}
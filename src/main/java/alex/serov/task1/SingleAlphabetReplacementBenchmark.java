@@ -0,0 +1,68 @@
+package alex.serov.task1;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Сравнение табличного шифра замены с прежней реализацией на HashMap на тексте в несколько
+ * мегабайт. Запуск: java alex.serov.task1.SingleAlphabetReplacementBenchmark [размер в МБ].
+ */
+public class SingleAlphabetReplacementBenchmark {
+
+  private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+  private static final String KEY = "xyzabcdefghijklmnopqrstuvw";
+  private static final int ITERATIONS = 10;
+
+  /**
+   * Прежний алгоритм: таблица замен в HashMap с упаковкой символов.
+   */
+  private static String encryptWithMap(String message) {
+    Map<Character, Character> cipher = new HashMap<>();
+    for (int i = 0; i < KEY.length(); i++) {
+      cipher.put(ALPHABET.charAt(i), KEY.charAt(i));
+    }
+    StringBuilder result = new StringBuilder(message.length());
+    for (int i = 0; i < message.length(); i++) {
+      char c = Character.toLowerCase(message.charAt(i));
+      result.append(Character.isLetter(c) ? cipher.getOrDefault(c, c) : c);
+    }
+    return result.toString();
+  }
+
+  private static String createText(int length) {
+    Random random = new Random(42);
+    String symbols = ALPHABET + ALPHABET.toUpperCase() + "  ,.";
+    char[] text = new char[length];
+    for (int i = 0; i < length; i++) {
+      text[i] = symbols.charAt(random.nextInt(symbols.length()));
+    }
+    return new String(text);
+  }
+
+  private static double measure(Runnable action, long bytes) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < ITERATIONS; i++) {
+      long start = System.nanoTime();
+      action.run();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return bytes / 1e6 / (best / 1e9);
+  }
+
+  public static void main(String[] args) {
+    int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+    String text = createText(megabytes << 20);
+    SingleAlphabetReplacementCipherImpl cipher = new SingleAlphabetReplacementCipherImpl(KEY);
+    String encrypted = cipher.encrypt(text);
+    if (!encrypted.equals(encryptWithMap(text))) {
+      throw new IllegalStateException("Implementations disagree.");
+    }
+    System.out.printf("HashMap encrypt: %.1f MB/s%n",
+        measure(() -> encryptWithMap(text), text.length()));
+    System.out.printf("Table encrypt:   %.1f MB/s%n",
+        measure(() -> cipher.encrypt(text), text.length()));
+    System.out.printf("Table decrypt:   %.1f MB/s%n",
+        measure(() -> cipher.decrypt(encrypted), text.length()));
+  }
+}
@@ -1,70 +1,87 @@
 package alex.serov.task1;
 
-import alex.serov.Cipher;
-import java.util.HashMap;
-import java.util.Map;
+import alex.serov.Alphabet;
+import alex.serov.TextCipher;
+import alex.serov.stream.CipherOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 /**
- * Реализация шифра замены символов в одном алфавите на основе интерфейса Cipher. Для шифрования
- * используется ключ, который определяет соответствие символов алфавита.
+ * Реализация шифра замены символов в одном алфавите на основе интерфейса TextCipher. Для
+ * шифрования используется ключ, который определяет соответствие символов алфавита. Прямая и
+ * обратная таблицы замен строятся один раз для всех символов char, поэтому шифрование и
+ * дешифрование сводятся к одному обращению к массиву на символ.
  */
-public class SingleAlphabetReplacementCipherImpl implements Cipher {
+public class SingleAlphabetReplacementCipherImpl implements TextCipher {
 
-  private final String key;
+  private final char[] encryptTable;
+  private final char[] decryptTable;
 
   public SingleAlphabetReplacementCipherImpl(String key) {
-    this.key = key;
+    this(key, Alphabet.LATIN);
   }
 
   /**
-   * Генерирует шифр на основе заданного ключа.
-   * Каждая буква алфавита отображается на соответствующую букву в ключе.
-   *
-   * @param key Ключ, используемый для создания шифра.
-   * @return Сгенерированный шифр.
+   * @param key      буквы, на которые заменяются первые key.length() букв алфавита.
+   * @param alphabet алфавит открытого текста.
    */
-  private Map<Character, Character> getCipher(String key) {
-    Map<Character, Character> cipher = new HashMap<>();
-    String alphabet = "abcdefghijklmnopqrstuvwxyz";
-    key = key.toLowerCase();
+  public SingleAlphabetReplacementCipherImpl(String key, Alphabet alphabet) {
+    if (key.length() > alphabet.size()) {
+      throw new IllegalArgumentException("Key is longer than the alphabet.");
+    }
+    this.encryptTable = createEncryptTable(key, alphabet);
+    this.decryptTable = createDecryptTable(key, alphabet);
+  }
+
+  /**
+   * Строит таблицу шифрования для всех символов: символ приводится к нижнему регистру, и буква
+   * алфавита с индексом i заменяется буквой ключа key[i].
+   */
+  private static char[] createEncryptTable(String key, Alphabet alphabet) {
+    char[] table = new char[Character.MAX_VALUE + 1];
+    for (int c = 0; c < table.length; c++) {
+      char lower = Character.toLowerCase((char) c);
+      int index = alphabet.indexOf(lower);
+      boolean replaced = Character.isLetter(lower) && index >= 0 && index < key.length();
+      table[c] = replaced ? Character.toLowerCase(key.charAt(index)) : lower;
+    }
+    return table;
+  }
+
+  /**
+   * Строит обратную таблицу: буква ключа key[i] заменяется буквой алфавита с индексом i. Если
+   * буква встречается в ключе несколько раз, используется последнее вхождение.
+   */
+  private static char[] createDecryptTable(String key, Alphabet alphabet) {
+    char[] table = new char[Character.MAX_VALUE + 1];
+    for (int c = 0; c < table.length; c++) {
+      table[c] = (char) c;
+    }
     for (int i = 0; i < key.length(); i++) {
-      cipher.put(alphabet.charAt(i), key.toLowerCase().charAt(i));
+      char replacement = Character.toLowerCase(key.charAt(i));
+      if (Character.isLetter(replacement)) {
+        table[replacement] = alphabet.letterAt(i);
+      }
     }
-    return cipher;
+    return table;
   }
 
   @Override
-  public String encrypt(String message) {
-    StringBuilder stringBuilder = new StringBuilder();
-    for (char c : message.toLowerCase().toCharArray()) {
-      if (Character.isLetter(c)) {
-        stringBuilder.append(getCipher(key).getOrDefault(c, c));
-      } else {
-        stringBuilder.append(c);
-      }
+  public void encrypt(char[] symbols, int offset, int length, long position) {
+    for (int i = offset; i < offset + length; i++) {
+      symbols[i] = encryptTable[symbols[i]];
     }
-    return stringBuilder.toString();
   }
 
   @Override
-  public String decrypt(String message) {
-    StringBuilder stringBuilder = new StringBuilder();
-    for (char c : message.toCharArray()) {
-      if (Character.isLetter(c)) {
-        stringBuilder.append(getCipher(message).entrySet()
-            .stream()
-            .filter(entry -> entry.getValue().equals(c))
-            .map(Map.Entry::getKey)
-            .findFirst()
-            .orElse(c));
-      } else {
-        stringBuilder.append(c);
-      }
+  public void decrypt(char[] symbols, int offset, int length, long position) {
+    for (int i = offset; i < offset + length; i++) {
+      symbols[i] = decryptTable[symbols[i]];
     }
-    return stringBuilder.toString();
   }
 
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
     String message = """
         One morning, when Gregor Samsa woke from troubled dreams, he found himself transformed in his bed into a horrible vermin. He lay on his armour-like back, and if he lifted his head a little he could see his brown belly, slightly domed and divided by arches into stiff sections. The bedding was hardly able to cover it and seemed ready to slide off any moment. His many legs, pitifully thin compared with the size of the rest of him, waved about helplessly as he looked. "What's happened to me?" he thought. It wasn't a dream. His room, a proper human room although a little too small, lay peacefully between its four familiar walls. A collection of textile samples lay spread out on the table - Samsa was a travelling salesman - and above it there hung a picture that he had recently cut out of an illustrated magazine and housed in a nice, gilded frame. It showed a lady fitted out with a fur hat and fur boa who sat upright, raising a heavy fur muff that covered the whole of her lower arm towards the viewer. Gregor then turned to look out the window at the dull weather. Drops of rain could be heard hitting the pane, which made him feel quite sad. "How about if I sleep a little bit longer and forget all this nonsense", he thought, but that was something he was unable to do because he was used to sleeping on his right, and in his present state couldn't get into that position. However hard he threw himself onto his right, he always rolled back to where he was. He must have tried it a hundred times, shut his eyes so that he wouldn't have to look at the floundering legs, and only stopped when he began to feel a mild, dull pain there that he had never felt before. "Oh, God", he thought, "what a strenuous career it is that I've chosen! Travelling day in and day out. Doing business like this takes much more effort than doing your own business at home, and on top of that there's the curse of travelling, worries about making train connections, bad and irregular food, contact with different people all the time so that you can never get to know anyone or become friendly with them. It can all go to Hell!" He felt a slight itch up on his belly; pushed himself slowly up on his back towards the headboard so that he could lift his head better; found where the itch was, and saw that it was covered with lots of little white spots which he didn't know what to make of; and when he tried to feel the place with one of his legs he drew it quickly back because as soon as he touched it he was overcome by a cold shudder. He slid back into his former position. "Getting up early all the time", he thought, "it makes you stupid. You've got to get enough sleep. Other travelling salesmen live a life of luxury. For instance, whenever I go back to the guest house during the morning to copy out the contract, these gentlemen are always still sitting there eating their breakfasts. I ought to just try that with my boss; I'd get kicked out on the spot. But who knows, maybe that would be the best thing for me. If I didn't have my parents to think about I'd have given in my notice a long time ago, I'd have gone up to the boss and told him just what I think, tell him everything I would, let him know just what I feel. He'd fall right off his desk! And it's a funny sort of business to be sitting up there at your desk, talking down at your subordinates from up there, especially when you have to go right up close because the boss is hard of hearing. Well, there's still some hope; once I've got the money together to pay off my parents' debt to him - another five or six years I suppose - that's definitely what I'll do. That's when I'll make the big change. First of all though, I've got to get up, my train leaves at five." And he looked over at the alarm clock, ticking on the chest of drawers. "God in Heaven!" he thought. It was half past six and the hands were quietly moving forwards, it was even later than half past, more like quarter to seven. Had the alarm clock not rung? He could see from the bed that it had been set for four o'clock as it should have been; it certainly must have rung. Yes, but was it possible to quietly sleep through that furniture-rattling noise? True, he had not slept peacefully, but probably all the more deeply because of that. What should he do now? The next train went at seven; if he were to catch that he would have to rush like mad and the collection of samples was still not packed, and he did not at all feel particularly fresh and lively. And even if he did catch the train he would not avoid his boss's anger as the office assistant would have been there to see the five o'clock train go, he would have put in his report about Gregor's not being there a long time ago. The office assistant was the boss's man, spineless, and with no understanding. What about if he reported sick? But that would be extremely strained and suspicious as in fifteen years of service Gregor had never once yet been ill. His boss would certainly come round with the doctor from the medical insurance company, accuse his parents of having a lazy son, and accept the doctor's recommendation not to make any claim as the doctor believed that no-one was ever ill but that many were workshy. And what's more, would he have been entirely wrong in this case? Gregor did in fact, apart from excessive sleepiness after sleeping for so long, feel completely well and even felt much hungrier than usual. One morning, when Gregor Samsa woke from troubled dreams, he found himself transformed in his bed into a horrible vermin. He lay on his armour-like back, and if he lifted his head a little he could see his brown belly, slightly domed and divided by arches into stiff sections. The bedding was hardly able to cover it and seemed ready to slide off any moment. His many legs, pitifully thin compared with the size of the rest of him, waved about helplessly as he looked. "What's happened to me?" he thought. It wasn't a dream. His room, a proper human room although a little too small, lay peacefully between its four familiar walls. A collection of textile samples lay spread out on the table - Samsa was a travelling salesman - and above it there hung a picture that he had recently cut out of an illustrated magazine and housed in a nice, gilded frame. It showed a lady fitted out with a fur hat and fur boa who sat upright, raising a heavy fur muff that covered the whole of her lower arm towards the viewer. Gregor then turned to look out the window at the dull weather. Drops of rain could be heard hitting the pane, which made him feel quite sad. "How about if I sleep a little bit longer and forget all this nonsense", he thought, but that was something he was unable to do because he was used to sleeping on his right, and in his present state couldn't get into that position. However hard he threw himself onto his right, he always rolled back to where he was. He must have tried it a hundred times, shut his eyes so that he wouldn't have to look at the floundering legs, and only stopped when he began to feel a mild, dull pain there that he had never felt before. "Oh, God", he thought, "what a strenuous career it is that I've chosen! Travelling day in and day out. Doing business like this takes much more effort than doing your own business at home, and on top of that there's the curse of travelling, worries about making train connections, bad and irregular food, contact with different people all the time so that you can never get to know anyone or become friendly with them. It can all go to Hell!" He felt a slight itch up on his belly; pushed himself slowly up on his back towards the headboard so that he could lift his head better; found where the itch was, and saw that it was covered with lots of little white spots which he didn't know what to make of; and when he tried to feel the place with one of his legs he drew it quickly back because as soon as he touched it he was overcome by a cold shudder. He slid back into his former position. "Getting up early all the time", he thought, "it makes you stupid. You've got to get enough sleep. Other travelling salesmen live a life of luxury. For instance, whenever I go back to the guest house during the morning to copy out the contract, these gentlemen are always still sitting there eating their breakfasts. I ought to just try that with my boss; I'd get kicked out on the spot. But who knows, maybe that would be the best thing for me. If I didn't have my parents to think about I'd have given in my notice a long time ago, I'd have gone up to the boss and told him just what I think, tell him everything I would, let him know just what I feel. He'd fall right off his desk! And it's a funny sort of business to be sitting up there at your desk, talking down at your subordinates from up there, especially when you have to go right up close because the boss is hard of hearing. Well, there's still some hope; once I've got the money together to pay off my parents' debt to him - another five or six years I suppose - that's definitely what I'll do. That's when I'll make the big change. First of all though, I've got to get up, my train leaves at five." And he looked over at the alarm clock, ticking on the chest of drawers. "God in Heaven!" he thought. It was half past six and the hands were quietly moving forwards, it was even later than half past, more like quarter to seven. Had the alarm clock not rung? He could see from the bed that it had been set for four o'clock as it should have been; it certainly must have rung. Yes, but was it possible to quietly sleep through that furniture-rattling noise? True, he had not slept peacefully, but probably all the more deeply because of that. What should he do now? The next train went at seven; if he were to catch that he would have to rush like mad and the collection of samples was still not packed, and he did not at all feel particularly fresh and lively. And even if he did catch the train he would not avoid his boss's anger as the office a
         """;
@@ -73,5 +90,17 @@ public class SingleAlphabetReplacementCipherImpl implements Cipher {
     System.out.println("Encrypted message: " + cipher.encrypt(message));
     System.out.println(
         "Decrypted message: " + cipher.decrypt(cipher.encrypt(message)));
+
+    // Побайтовая запись в поток должна давать тот же результат, что и encrypt, в том числе когда
+    // в сеансе накоплено больше символов, чем помещается в одну порцию.
+    String longMessage = message.repeat(3);
+    ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+    try (CipherOutputStream out = new CipherOutputStream(streamed, cipher.newEncryptSession())) {
+      for (byte b : longMessage.getBytes(StandardCharsets.UTF_8)) {
+        out.write(b);
+      }
+    }
+    System.out.println("Single-byte stream matches: "
+        + streamed.toString(StandardCharsets.UTF_8).equals(cipher.encrypt(longMessage)));
   }
 }
\ No newline at end of file
@@ -1,40 +1,76 @@
 package alex.serov.task1.hack;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * Класс, представляющий собой набор методов для работы с частотами монограмм, биграмм и триграмм.
+ * Таблицы хранятся в ресурсах в бинарном формате {@link FrequencyTable} и загружаются из
+ * classpath при первом обращении к каждому порядку.
  */
 public class Frequency {
 
-  // Статические поля, представляющие собой частоты монограмм, биграмм и триграмм.
-  public static Map<String, Double> monogramFrequency = put("src/main/resources/monoFrequency.txt");
-  public static Map<String, Double> bigramFrequency = put("src/main/resources/biFrequency.txt");
-  public static Map<String, Double> trigramFrequency = put("src/main/resources/triFrequency.txt");
+  // Имена ресурсов по порядку n-грамм; таблица квадграмм необязательна и строится по корпусу
+  // командой FrequencyTableConverter --corpus 4 src/main/resources/quadFrequency.bin корпус.txt
+  private static final String[] RESOURCES = {null, "/monoFrequency.bin", "/biFrequency.bin",
+      "/triFrequency.bin", "/quadFrequency.bin"};
+  private static final FrequencyTable[] TABLES = new FrequencyTable[RESOURCES.length];
+  private static final Map<Integer, Map<String, Double>> MAPS = new HashMap<>();
 
   /**
-   * Метод для чтения частот из файла и формирования отображения.
+   * Возвращает таблицу частот n-грамм заданного порядка, загружая ее при первом обращении.
    *
-   * @param filePath путь к файлу с частотами.
-   * @return отображение с частотами.
+   * @param order порядок n-грамм (от 1 до {@link NgramCounter#MAX_ORDER}).
+   * @return таблица частот.
+   * @throws IllegalStateException если таблицы нет в classpath.
    */
-  private static Map<String, Double> put(String filePath) {
-    Map<String, Double> map = new LinkedHashMap<>();
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-      String line;
-      while ((line = reader.readLine()) != null) {
-        String[] parts = line.split("\t"); // Разделяем на ключ и значение
-        map.put(parts[0].toLowerCase(), Double.parseDouble(parts[1].replace(",", ".")) / 100);
+  public static synchronized FrequencyTable getTable(int order) {
+    if (order < 1 || order >= RESOURCES.length) {
+      throw new IllegalArgumentException("Order should be between 1 and " + NgramCounter.MAX_ORDER);
+    }
+    if (TABLES[order] == null) {
+      try (InputStream in = Frequency.class.getResourceAsStream(RESOURCES[order])) {
+        if (in == null) {
+          throw new IllegalStateException("Frequency table not found: " + RESOURCES[order]);
+        }
+        TABLES[order] = FrequencyTable.read(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
       }
-    } catch (IOException e) {
-      e.printStackTrace();
     }
-    return map;
+    return TABLES[order];
+  }
+
+  /**
+   * @return true, если таблица заданного порядка есть в classpath.
+   */
+  public static boolean hasTable(int order) {
+    return order >= 1 && order < RESOURCES.length
+        && Frequency.class.getResource(RESOURCES[order]) != null;
+  }
+
+  /**
+   * @return частоты монограмм строчными буквами по убыванию частоты.
+   */
+  public static Map<String, Double> getMonogramFrequency() {
+    return getFrequencyMap(1);
+  }
+
+  public static Map<String, Double> getBigramFrequency() {
+    return getFrequencyMap(2);
+  }
+
+  public static Map<String, Double> getTrigramFrequency() {
+    return getFrequencyMap(3);
+  }
+
+  private static synchronized Map<String, Double> getFrequencyMap(int order) {
+    return MAPS.computeIfAbsent(order,
+        key -> Collections.unmodifiableMap(getTable(key).toFrequencyMap()));
   }
 
   /**
@@ -44,7 +80,8 @@ public class Frequency {
    * @param findString символ, который должен содержаться в n-грамме.
    * @return отображение с подмножеством n-грамм.
    */
-  public static Map<String, Double> getNgramsWithChar(Map<String, Double> ngramFrequencies, String findString) {
+  public static Map<String, Double> getNgramsWithChar(Map<String, Double> ngramFrequencies,
+      String findString) {
     Map<String, Double> result = new HashMap<>();
     for (String ngram : ngramFrequencies.keySet()) {
       if (ngram.contains(findString)) {
@@ -0,0 +1,233 @@
+package alex.serov.task1.hack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Плотная таблица частот n-грамм, индексированная кодами {@link NgramCounter}. Хранится в
+ * бинарном формате: магическое число "NGRM", версия, порядок n, 26^n частот float, затем
+ * количество перечисленных n-грамм и их коды в исходном порядке; все числа в порядке big-endian.
+ * Частоты заданы долями, а не процентами. Исходный порядок - порядок строк текстовой таблицы,
+ * включая n-граммы с нулевой частотой. Экземпляр неизменяем.
+ */
+public final class FrequencyTable {
+
+  static final int MAGIC = 0x4E47524D;
+  static final int VERSION = 2;
+  // Версия без исходного порядка: он восстанавливается сортировкой по убыванию частоты.
+  private static final int VERSION_UNORDERED = 1;
+  private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+  private final int order;
+  private final float[] frequencies;
+  // Коды перечисленных n-грамм в порядке toFrequencyMap.
+  private final int[] ranking;
+
+  private FrequencyTable(int order, float[] frequencies, int[] ranking) {
+    this.order = order;
+    this.frequencies = frequencies;
+    this.ranking = ranking;
+  }
+
+  /**
+   * Читает таблицу из бинарного формата одним чтением. Таблицы версии 1 без исходного порядка
+   * тоже принимаются.
+   *
+   * @param in поток с таблицей; не закрывается.
+   * @return таблица частот.
+   * @throws IOException при ошибке чтения или неверном формате.
+   */
+  public static FrequencyTable read(InputStream in) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes());
+    int version = buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC ? 0
+        : buffer.getInt();
+    if (version != VERSION && version != VERSION_UNORDERED) {
+      throw new IOException("Not a frequency table");
+    }
+    int order = buffer.getInt();
+    if (order < 1 || order > NgramCounter.MAX_ORDER
+        || buffer.remaining() < NgramCounter.getSize(order) * Float.BYTES) {
+      throw new IOException("Corrupted frequency table");
+    }
+    float[] frequencies = new float[NgramCounter.getSize(order)];
+    buffer.asFloatBuffer().get(frequencies);
+    buffer.position(buffer.position() + frequencies.length * Float.BYTES);
+    if (version == VERSION_UNORDERED) {
+      if (buffer.hasRemaining()) {
+        throw new IOException("Corrupted frequency table");
+      }
+      return new FrequencyTable(order, frequencies, rank(frequencies));
+    }
+    int count = buffer.remaining() < Integer.BYTES ? -1 : buffer.getInt();
+    if (count < 0 || count > frequencies.length || buffer.remaining() != count * Integer.BYTES) {
+      throw new IOException("Corrupted frequency table");
+    }
+    int[] ranking = new int[count];
+    buffer.asIntBuffer().get(ranking);
+    for (int code : ranking) {
+      if (code < 0 || code >= frequencies.length) {
+        throw new IOException("Corrupted frequency table");
+      }
+    }
+    return new FrequencyTable(order, frequencies, ranking);
+  }
+
+  /**
+   * Разбирает текстовую таблицу: строки вида "THE\t1,81" с частотой в процентах.
+   *
+   * @param reader источник строк; не закрывается.
+   * @return таблица частот.
+   * @throws IOException при ошибке чтения или неверной строке.
+   */
+  public static FrequencyTable parse(BufferedReader reader) throws IOException {
+    float[] frequencies = null;
+    boolean[] listed = null;
+    int[] ranking = null;
+    int count = 0;
+    int order = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isBlank()) {
+        continue;
+      }
+      int tab = line.indexOf('\t');
+      String ngram = tab < 0 ? "" : line.substring(0, tab);
+      if (frequencies == null) {
+        order = ngram.length();
+        if (order < 1 || order > NgramCounter.MAX_ORDER) {
+          throw new IOException("Invalid line: " + line);
+        }
+        frequencies = new float[NgramCounter.getSize(order)];
+        listed = new boolean[frequencies.length];
+        ranking = new int[frequencies.length];
+      }
+      int code = ngram.length() == order ? NgramCounter.encode(ngram) : -1;
+      if (code < 0) {
+        throw new IOException("Invalid line: " + line);
+      }
+      String percent = line.substring(tab + 1).trim().replace(',', '.');
+      try {
+        frequencies[code] = (float) (Double.parseDouble(percent) / 100);
+      } catch (NumberFormatException e) {
+        throw new IOException("Invalid line: " + line, e);
+      }
+      // Повторная строка меняет частоту, но не место n-граммы, как при записи в LinkedHashMap.
+      if (!listed[code]) {
+        listed[code] = true;
+        ranking[count++] = code;
+      }
+    }
+    if (frequencies == null) {
+      throw new IOException("Empty frequency table");
+    }
+    return new FrequencyTable(order, frequencies, Arrays.copyOf(ranking, count));
+  }
+
+  /**
+   * Строит таблицу по счетчикам, например по профилю корпуса из {@link NgramProfileBuilder}.
+   */
+  public static FrequencyTable of(NgramCounter counter) {
+    float[] frequencies = new float[NgramCounter.getSize(counter.getOrder())];
+    for (int i = 0; i < frequencies.length; i++) {
+      frequencies[i] = (float) counter.getFrequency(i);
+    }
+    return new FrequencyTable(counter.getOrder(), frequencies, rank(frequencies));
+  }
+
+  /**
+   * @return коды n-грамм с ненулевой частотой по убыванию частоты, при равенстве - по возрастанию
+   *     кодов, как в {@link NgramCounter#toFrequencyMap()}.
+   */
+  private static int[] rank(float[] frequencies) {
+    int present = 0;
+    for (float frequency : frequencies) {
+      if (frequency > 0) {
+        present++;
+      }
+    }
+    // Биты неотрицательного float упорядочены так же, как сами значения; код инвертирован, чтобы
+    // при равных частотах n-граммы шли по возрастанию кодов.
+    int last = frequencies.length - 1;
+    long[] keys = new long[present];
+    int position = 0;
+    for (int i = 0; i <= last; i++) {
+      if (frequencies[i] > 0) {
+        keys[position++] = ((long) Float.floatToIntBits(frequencies[i]) << Integer.SIZE) | last - i;
+      }
+    }
+    Arrays.sort(keys);
+    int[] ranking = new int[present];
+    for (int i = 0; i < present; i++) {
+      ranking[i] = last - (int) keys[present - 1 - i];
+    }
+    return ranking;
+  }
+
+  /**
+   * Записывает таблицу в бинарном формате.
+   *
+   * @param out поток для записи; не закрывается.
+   * @throws IOException при ошибке записи.
+   */
+  public void write(OutputStream out) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + frequencies.length * Float.BYTES
+        + (1 + ranking.length) * Integer.BYTES);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(order);
+    buffer.asFloatBuffer().put(frequencies);
+    buffer.position(buffer.position() + frequencies.length * Float.BYTES);
+    buffer.putInt(ranking.length).asIntBuffer().put(ranking);
+    out.write(buffer.array());
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  /**
+   * @return 26^n.
+   */
+  public int size() {
+    return frequencies.length;
+  }
+
+  /**
+   * @param code код n-граммы {@link NgramCounter#encode(CharSequence)}.
+   * @return частота n-граммы (доля).
+   */
+  public float get(int code) {
+    return frequencies[code];
+  }
+
+  /**
+   * @return частота n-граммы без учета регистра или 0, если она не из латинских букв.
+   */
+  public float get(CharSequence ngram) {
+    int code = ngram.length() == order ? NgramCounter.encode(ngram) : -1;
+    return code < 0 ? 0 : frequencies[code];
+  }
+
+  /**
+   * @return копия массива частот, индексированного кодами n-грамм.
+   */
+  public float[] toArray() {
+    return frequencies.clone();
+  }
+
+  /**
+   * @return перечисленные n-граммы строчными буквами в исходном порядке: для текстовой таблицы -
+   *     в порядке строк, включая нулевые частоты, для профиля - по убыванию частоты.
+   */
+  public Map<String, Double> toFrequencyMap() {
+    Map<String, Double> map = new LinkedHashMap<>();
+    for (int code : ranking) {
+      map.put(NgramCounter.decode(code, order), (double) frequencies[code]);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,85 @@
+package alex.serov.task1.hack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Преобразует текстовые таблицы частот ("THE\t1,81" в процентах) в бинарный формат
+ * {@link FrequencyTable}. Аргументы - пары путей "вход.txt выход.bin"; без аргументов
+ * преобразуются таблицы из src/main/resources. С ключом --corpus таблица строится по текстам
+ * корпуса в режиме только букв, как их оценивает {@link NgramFitness}, например:
+ * "--corpus 4 src/main/resources/quadFrequency.bin корпус.txt". Для квадграмм нужен корпус
+ * художественных текстов в десятки мегабайтов: по маленькому корпусу большинство квадграмм
+ * получает штраф, и функция пригодности ошибается чаще, чем по таблице триграмм.
+ */
+public class FrequencyTableConverter {
+
+  private static final String RESOURCES = "src/main/resources";
+  private static final String[] DEFAULT_TABLES = {"monoFrequency", "biFrequency", "triFrequency"};
+  private static final String USAGE = "Usage: FrequencyTableConverter [input.txt output.bin]...\n"
+      + "       FrequencyTableConverter --corpus order output.bin corpus.txt...";
+
+  public static void convert(Path source, Path target) throws IOException {
+    FrequencyTable table;
+    try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+      table = FrequencyTable.parse(reader);
+    }
+    try (OutputStream out = Files.newOutputStream(target)) {
+      table.write(out);
+    }
+  }
+
+  /**
+   * Строит таблицу n-грамм по файлам корпуса. Символы кроме букв пропускаются, поэтому n-граммы
+   * переходят через пробелы и знаки препинания внутри файла.
+   *
+   * @param order   длина n-грамм (от 1 до {@link NgramCounter#MAX_ORDER}).
+   * @param target  файл для таблицы.
+   * @param sources файлы корпуса в однобайтовой кодировке (ASCII, UTF-8 или ISO-8859-1).
+   */
+  public static void build(int order, Path target, Path... sources) throws IOException {
+    NgramProfileBuilder builder = new NgramProfileBuilder(order, true);
+    for (Path source : sources) {
+      builder.addFile(source);
+    }
+    try (OutputStream out = Files.newOutputStream(target)) {
+      FrequencyTable.of(builder.getCounter()).write(out);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equals("--corpus")) {
+      if (args.length < 4) {
+        System.err.println(USAGE);
+        return;
+      }
+      Path[] sources = new Path[args.length - 3];
+      for (int i = 0; i < sources.length; i++) {
+        sources[i] = Path.of(args[i + 3]);
+      }
+      build(Integer.parseInt(args[1]), Path.of(args[2]), sources);
+      System.out.println(args.length - 3 + " corpus file(s) -> " + args[2]);
+      return;
+    }
+    String[] paths = args;
+    if (paths.length == 0) {
+      paths = new String[2 * DEFAULT_TABLES.length];
+      for (int i = 0; i < DEFAULT_TABLES.length; i++) {
+        paths[2 * i] = RESOURCES + "/" + DEFAULT_TABLES[i] + ".txt";
+        paths[2 * i + 1] = RESOURCES + "/" + DEFAULT_TABLES[i] + ".bin";
+      }
+    }
+    if (paths.length % 2 != 0) {
+      System.err.println(USAGE);
+      return;
+    }
+    for (int i = 0; i < paths.length; i += 2) {
+      convert(Path.of(paths[i]), Path.of(paths[i + 1]));
+      System.out.println(paths[i] + " -> " + paths[i + 1]);
+    }
+  }
+}
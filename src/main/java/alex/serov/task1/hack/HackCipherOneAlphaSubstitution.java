@@ -4,12 +4,10 @@ import alex.serov.task1.SingleAlphabetReplacementCipherImpl;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Класс для взлома шифра однозначной алфавитной замены.
@@ -55,7 +53,10 @@ public class HackCipherOneAlphaSubstitution {
    *
    * @param encodedString Закодированная строка.
    * @return Словарь, представляющий соответствие между оригинальными и замененными символами.
+   * @deprecated жадное сопоставление частот восстанавливает лишь часть ключа; используйте
+   *     {@link SubstitutionSolver}, который находит полный ключ.
    */
+  @Deprecated
   static Map<Character, Character> hack(String encodedString) {
     Map<String, Double> monogram = generateNgramFrequencyKeys(encodedString, 1);
     Map<String, Double> bigram = generateNgramFrequencyKeys(encodedString, 2);
@@ -63,9 +64,10 @@ public class HackCipherOneAlphaSubstitution {
     Map<Character, Character> cipher = new HashMap<>();
     double errorThreshold = 0.08;
     Set<String> set = new HashSet<>();
-    for (String c: Frequency.monogramFrequency.keySet()) {
+    Map<String, Double> monogramFrequency = Frequency.getMonogramFrequency();
+    for (String c: monogramFrequency.keySet()) {
       List<String> options = FrequencyMatcher.findClosestMatches(
-          Frequency.monogramFrequency.get(c), monogram, set, 10);
+          monogramFrequency.get(c), monogram, set, 10);
       System.out.print("Options for " + c + ": " + options + " -> ");
 
       Map<String, Integer> resultMap = new HashMap<>();
@@ -74,7 +76,7 @@ public class HackCipherOneAlphaSubstitution {
 
         Map<String, Double> correspondingEncodeBigram = Frequency.getNgramsWithChar(bigram, option);
         Map<String, Double> correspondingDecodeBigram = Frequency.getNgramsWithChar(
-            Frequency.bigramFrequency, option);
+            Frequency.getBigramFrequency(), option);
         for (String sBigram : correspondingEncodeBigram.keySet()) {
           double encodeFrequency = correspondingEncodeBigram.get(sBigram);
           double decodeFrequency = correspondingDecodeBigram.getOrDefault(sBigram, 0.0);
@@ -85,7 +87,7 @@ public class HackCipherOneAlphaSubstitution {
         Map<String, Double> correspondingEncodeTrigram = Frequency.getNgramsWithChar(trigram,
             option);
         Map<String, Double> correspondingDecodeTrigram = Frequency.getNgramsWithChar(
-            Frequency.trigramFrequency, option);
+            Frequency.getTrigramFrequency(), option);
         for (String sTrigram : correspondingEncodeTrigram.keySet()) {
           double encodeFrequency = correspondingEncodeTrigram.get(sTrigram);
           double decodeFrequency = correspondingDecodeTrigram.getOrDefault(sTrigram, 0.0);
@@ -131,44 +133,16 @@ public class HackCipherOneAlphaSubstitution {
   }
 
   /**
-   * Генерирует частотные ключи для n-грамм (последовательности из n символов) в тексте.
+   * Генерирует частотные ключи для n-грамм (последовательности из n символов) в тексте. Подсчет
+   * выполняется {@link NgramCounter} без учета регистра, ключи возвращаются строчными буквами.
    *
    * @param text Текст, для которого генерируются ключи.
-   * @param n    Число, представляющее длину n-грамм.
+   * @param n    Число, представляющее длину n-грамм (от 1 до {@link NgramCounter#MAX_ORDER}).
    * @return Map, содержащая частоты для каждой уникальной n-граммы, отсортированную по убыванию
    * частот.
    */
   public static Map<String, Double> generateNgramFrequencyKeys(String text, int n) {
-    Map<String, Double> ngramCountMap = new HashMap<>();
-    for (int i = 0; i < text.length() - n + 1; i++) {
-      String ngram = text.substring(i, i + n);
-      if (ngram.matches("[a-zA-Z]{" + n + "}")) {
-        ngramCountMap.merge(ngram, 1.0, Double::sum);
-      }
-    }
-
-    return sortAndNormalizeMap(ngramCountMap);
-  }
-
-  /**
-   * Сортирует и нормализует заданную Map по значениям в порядке убывания.
-   *
-   * @param map Map, которую необходимо отсортировать и нормализовать.
-   * @return Новая Map, содержащая отсортированные и нормализованные значения из входной Map.
-   */
-  private static Map<String, Double> sortAndNormalizeMap(Map<String, Double> map) {
-    map = map.entrySet()
-        .stream()
-        .sorted(Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
-        .collect(Collectors.toMap(
-            Entry::getKey,
-            Entry::getValue,
-            (e1, e2) -> e2,
-            LinkedHashMap::new
-        ));
-    double totalOccurrences = map.values().stream().mapToDouble(Double::doubleValue).sum();
-    map.replaceAll((k, v) -> v / totalOccurrences);
-    return map;
+    return new NgramCounter(n).add(text).toFrequencyMap();
   }
 
   public static void main(String[] args) {
@@ -180,5 +154,7 @@ public class HackCipherOneAlphaSubstitution {
     SingleAlphabetReplacementCipherImpl cipher = new SingleAlphabetReplacementCipherImpl(key);
     System.out.println("Fey: " + hack(cipher.encrypt(message)));
     System.out.println("Key: " + HackCipherOneAlphaSubstitution.cipher);
+    System.out.println("Solver: " + SubstitutionSolver.createInstance().solve(
+        cipher.encrypt(message)));
   }
 }
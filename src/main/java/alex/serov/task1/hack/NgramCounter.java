@@ -0,0 +1,246 @@
+package alex.serov.task1.hack;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Счетчик n-грамм латинского алфавита за один проход. N-грамма кодируется числом в системе
+ * счисления с основанием 26 (первая буква - старший разряд), поэтому счетчики хранятся в
+ * плотном массиве длиной 26^n и подсчет не выделяет память на каждую позицию. Регистр букв не
+ * различается; любой символ кроме a-z и A-Z разрывает n-граммы. В режиме только букв такие
+ * символы пропускаются, и n-граммы переходят через пробелы и знаки препинания, как в таблицах
+ * частот, по которым оценивает текст {@link NgramFitness}. Частоты вычисляются по запросу.
+ * Экземпляр не потокобезопасен.
+ */
+public final class NgramCounter {
+
+  public static final int ALPHABET_SIZE = 26;
+  public static final int MAX_ORDER = 4;
+  // Количество бит под код n-граммы в ключах сортировки: 26^4 < 2^20.
+  private static final int CODE_BITS = 20;
+
+  private final int order;
+  private final boolean lettersOnly;
+  private final int size;
+  private final long[] counts;
+  private long total;
+  // Код последних букв и длина текущей серии букв; сохраняются между вызовами add.
+  private int code;
+  private int run;
+
+  /**
+   * @param order длина n-грамм (от 1 до {@link #MAX_ORDER}).
+   */
+  public NgramCounter(int order) {
+    this(order, false);
+  }
+
+  /**
+   * @param order       длина n-грамм (от 1 до {@link #MAX_ORDER}).
+   * @param lettersOnly true, если символы кроме букв пропускаются, а не разрывают n-граммы.
+   */
+  public NgramCounter(int order, boolean lettersOnly) {
+    if (order < 1 || order > MAX_ORDER) {
+      throw new IllegalArgumentException("Order should be between 1 and " + MAX_ORDER);
+    }
+    this.order = order;
+    this.lettersOnly = lettersOnly;
+    this.size = getSize(order);
+    this.counts = new long[size];
+  }
+
+  /**
+   * @return количество различных n-грамм длины order, то есть 26^order.
+   */
+  public static int getSize(int order) {
+    int size = 1;
+    for (int i = 0; i < order; i++) {
+      size *= ALPHABET_SIZE;
+    }
+    return size;
+  }
+
+  /**
+   * @return номер латинской буквы без учета регистра (0 для 'a') или -1 для других символов.
+   */
+  public static int letterIndex(char symbol) {
+    int index = (symbol | 0x20) - 'a';
+    return index >= 0 && index < ALPHABET_SIZE && symbol < 0x80 ? index : -1;
+  }
+
+  /**
+   * @return код n-граммы или -1, если в ней есть символ не из алфавита.
+   */
+  public static int encode(CharSequence ngram) {
+    int code = 0;
+    for (int i = 0; i < ngram.length(); i++) {
+      int index = letterIndex(ngram.charAt(i));
+      if (index < 0) {
+        return -1;
+      }
+      code = code * ALPHABET_SIZE + index;
+    }
+    return code;
+  }
+
+  /**
+   * @return n-грамма строчными буквами по ее коду.
+   */
+  public static String decode(int code, int order) {
+    char[] symbols = new char[order];
+    for (int i = order - 1; i >= 0; i--) {
+      symbols[i] = (char) ('a' + code % ALPHABET_SIZE);
+      code /= ALPHABET_SIZE;
+    }
+    return new String(symbols);
+  }
+
+  public NgramCounter add(CharSequence text) {
+    for (int i = 0; i < text.length(); i++) {
+      add(text.charAt(i));
+    }
+    return this;
+  }
+
+  public NgramCounter add(char[] text, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      add(text[i]);
+    }
+    return this;
+  }
+
+  /**
+   * Учитывает байты bytes с индекса from до to как однобайтовые символы; буфер не изменяется.
+   * Для текста в UTF-8 результат совпадает с подсчетом по символам, так как байты многобайтовых
+   * последовательностей не являются латинскими буквами.
+   */
+  public NgramCounter add(ByteBuffer bytes, int from, int to) {
+    for (int i = from; i < to; i++) {
+      add((char) (bytes.get(i) & 0xFF));
+    }
+    return this;
+  }
+
+  /**
+   * Учитывает очередной символ текста. N-граммы могут продолжаться из предыдущих вызовов.
+   */
+  public void add(char symbol) {
+    int index = letterIndex(symbol);
+    if (index < 0) {
+      if (!lettersOnly) {
+        run = 0;
+      }
+      return;
+    }
+    code = (code * ALPHABET_SIZE + index) % size;
+    if (++run >= order) {
+      counts[code]++;
+      total++;
+    }
+  }
+
+  /**
+   * Прибавляет счетчики другого экземпляра того же порядка.
+   */
+  public NgramCounter merge(NgramCounter other) {
+    if (other.order != order) {
+      throw new IllegalArgumentException("Counters of different orders cannot be merged");
+    }
+    for (int i = 0; i < size; i++) {
+      counts[i] += other.counts[i];
+    }
+    total += other.total;
+    return this;
+  }
+
+  /**
+   * Обнуляет счетчики и прерывает текущую n-грамму.
+   */
+  public void clear() {
+    Arrays.fill(counts, 0);
+    total = 0;
+    run = 0;
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  public boolean isLettersOnly() {
+    return lettersOnly;
+  }
+
+  /**
+   * @return общее количество учтенных n-грамм.
+   */
+  public long getTotal() {
+    return total;
+  }
+
+  public long getCount(int code) {
+    return counts[code];
+  }
+
+  public long getCount(CharSequence ngram) {
+    int code = ngram.length() == order ? encode(ngram) : -1;
+    return code < 0 ? 0 : counts[code];
+  }
+
+  /**
+   * @return доля n-граммы среди всех учтенных или 0, если текст пуст.
+   */
+  public double getFrequency(int code) {
+    return total == 0 ? 0 : (double) counts[code] / total;
+  }
+
+  /**
+   * @return копия массива счетчиков, индексированного кодами n-грамм.
+   */
+  public long[] getCounts() {
+    return counts.clone();
+  }
+
+  /**
+   * @return массив частот, индексированный кодами n-грамм.
+   */
+  public double[] getFrequencies() {
+    double[] frequencies = new double[size];
+    for (int i = 0; i < size; i++) {
+      frequencies[i] = getFrequency(i);
+    }
+    return frequencies;
+  }
+
+  /**
+   * Формирует отображение в виде {@link Frequency#getMonogramFrequency()}: встретившиеся n-граммы
+   * строчными буквами и их частоты, по убыванию частоты.
+   *
+   * @return отображение n-грамм на частоты.
+   */
+  public Map<String, Double> toFrequencyMap() {
+    int present = 0;
+    for (long count : counts) {
+      if (count != 0) {
+        present++;
+      }
+    }
+    // Счетчик в старших разрядах, инвертированный код в младших: сортировка по возрастанию дает
+    // убывание частот, а при равенстве - возрастание кодов.
+    long[] keys = new long[present];
+    int position = 0;
+    for (int i = 0; i < size; i++) {
+      if (counts[i] != 0) {
+        keys[position++] = (counts[i] << CODE_BITS) | (size - 1 - i);
+      }
+    }
+    Arrays.sort(keys);
+    Map<String, Double> map = new LinkedHashMap<>();
+    for (int i = keys.length - 1; i >= 0; i--) {
+      int ngramCode = size - 1 - (int) (keys[i] & ((1 << CODE_BITS) - 1));
+      map.put(decode(ngramCode, order), getFrequency(ngramCode));
+    }
+    return map;
+  }
+}
@@ -0,0 +1,79 @@
+package alex.serov.task1.hack;
+
+/**
+ * Функция пригодности для взлома шифра замены: сумма десятичных логарифмов вероятностей n-грамм
+ * текста по плотной таблице {@link FrequencyTable}. N-граммы берутся из букв текста подряд, без
+ * пробелов и знаков препинания ({@link NgramCounter} в режиме только букв), так же, как собраны
+ * таблицы частот; поэтому учитываются и короткие слова, и стыки слов. Таблицы из корпуса нужно
+ * строить так же: {@link NgramProfileBuilder} в режиме только букв или
+ * {@link FrequencyTableConverter} с ключом --corpus. Отсутствующим в таблице n-граммам
+ * назначается штраф на порядок ниже самой редкой известной n-граммы. Экземпляр неизменяем и
+ * может использоваться несколькими потоками; состояние перебора ключей хранит
+ * {@link SubstitutionScorer}.
+ */
+public final class NgramFitness {
+
+  private final int order;
+  private final double[] logProbabilities;
+
+  public NgramFitness(FrequencyTable table) {
+    this.order = table.getOrder();
+    this.logProbabilities = new double[table.size()];
+    float minimum = Float.MAX_VALUE;
+    for (int i = 0; i < table.size(); i++) {
+      if (table.get(i) > 0) {
+        minimum = Math.min(minimum, table.get(i));
+      }
+    }
+    double floor = Math.log10(minimum / 10);
+    for (int i = 0; i < table.size(); i++) {
+      logProbabilities[i] = table.get(i) > 0 ? Math.log10(table.get(i)) : floor;
+    }
+  }
+
+  /**
+   * @return функция по квадграммам, если их таблица есть в classpath, иначе по триграммам.
+   */
+  public static NgramFitness createDefault() {
+    return new NgramFitness(Frequency.getTable(Frequency.hasTable(4) ? 4 : 3));
+  }
+
+  public int getOrder() {
+    return order;
+  }
+
+  /**
+   * @param code код n-граммы {@link NgramCounter#encode(CharSequence)}.
+   * @return логарифм вероятности n-граммы.
+   */
+  public double getLogProbability(int code) {
+    return logProbabilities[code];
+  }
+
+  /**
+   * Оценивает открытый текст целиком.
+   *
+   * @return сумма логарифмов вероятностей n-грамм букв текста.
+   */
+  public double score(CharSequence text) {
+    NgramCounter counter = new NgramCounter(order, true).add(text);
+    double score = 0;
+    for (int i = 0; i < logProbabilities.length; i++) {
+      long count = counter.getCount(i);
+      if (count != 0) {
+        score += count * logProbabilities[i];
+      }
+    }
+    return score;
+  }
+
+  /**
+   * Готовит шифртекст к перебору ключей.
+   *
+   * @param ciphertext шифртекст.
+   * @return оценщик ключей с тождественным начальным ключом.
+   */
+  public SubstitutionScorer prepare(CharSequence ciphertext) {
+    return new SubstitutionScorer(this, new NgramCounter(order, true).add(ciphertext));
+  }
+}
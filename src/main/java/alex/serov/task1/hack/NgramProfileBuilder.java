@@ -0,0 +1,206 @@
+package alex.serov.task1.hack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Построитель частотного профиля n-грамм по большим корпусам. Файлы отображаются в память
+ * окнами, окно делится на участки, которые считаются параллельно в пуле ForkJoin в собственные
+ * {@link NgramCounter} и складываются при объединении задач. Каждый участок читает еще n - 1
+ * символов (в режиме только букв - n - 1 букв) за своей границей и учитывает только n-граммы,
+ * начинающиеся внутри него, поэтому результат совпадает с последовательным подсчетом. N-граммы не
+ * переходят через границы файлов и текстов. В обычном режиме любой символ кроме буквы разрывает
+ * n-граммы; таблицы для {@link NgramFitness} нужно строить в режиме только букв, в котором
+ * n-граммы переходят через пробелы и знаки препинания. Экземпляр не потокобезопасен.
+ */
+public final class NgramProfileBuilder {
+
+  // Размер окна отображения файла.
+  static final long WINDOW_SIZE = 1L << 30;
+  // Участок, который считается одной задачей без дальнейшего деления.
+  static final int SEGMENT_SIZE = 1 << 24;
+
+  private final ForkJoinPool pool;
+  private final NgramCounter counter;
+
+  public NgramProfileBuilder(int order) {
+    this(order, false);
+  }
+
+  public NgramProfileBuilder(int order, boolean lettersOnly) {
+    this(order, lettersOnly, ForkJoinPool.commonPool());
+  }
+
+  public NgramProfileBuilder(int order, ForkJoinPool pool) {
+    this(order, false, pool);
+  }
+
+  /**
+   * @param order       длина n-грамм (от 1 до {@link NgramCounter#MAX_ORDER}).
+   * @param lettersOnly true, если символы кроме букв пропускаются, а не разрывают n-граммы.
+   * @param pool        пул, в котором выполняется подсчет.
+   */
+  public NgramProfileBuilder(int order, boolean lettersOnly, ForkJoinPool pool) {
+    this.pool = pool;
+    this.counter = new NgramCounter(order, lettersOnly);
+  }
+
+  /**
+   * Учитывает файл, читая его как однобайтовый текст (ASCII, UTF-8 или ISO-8859-1).
+   *
+   * @param file файл корпуса.
+   * @throws IOException при ошибке ввода-вывода.
+   */
+  public NgramProfileBuilder addFile(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size; position += WINDOW_SIZE) {
+        int length = (int) Math.min(WINDOW_SIZE, size - position);
+        int mapped = (int) Math.min((long) length + getOverlap(channel, position + length),
+            size - position);
+        ByteBuffer window = channel.map(MapMode.READ_ONLY, position, mapped);
+        counter.merge(pool.invoke(new ByteSegment(window, 0, length, counter.getOrder(),
+            counter.isLettersOnly())));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @return количество байтов за границей окна, которые нужно отобразить вместе с ним: n - 1 или,
+   *     в режиме только букв, до n - 1 букв включительно.
+   */
+  private int getOverlap(FileChannel channel, long position) throws IOException {
+    int needed = counter.getOrder() - 1;
+    if (!counter.isLettersOnly()) {
+      return needed;
+    }
+    ByteBuffer chunk = ByteBuffer.allocate(8192);
+    int overlap = 0;
+    while (needed > 0 && overlap < WINDOW_SIZE) {
+      chunk.clear();
+      if (channel.read(chunk, position + overlap) < 0) {
+        break;
+      }
+      chunk.flip();
+      while (needed > 0 && chunk.hasRemaining()) {
+        if (NgramCounter.letterIndex((char) (chunk.get() & 0xFF)) >= 0) {
+          needed--;
+        }
+        overlap++;
+      }
+    }
+    return overlap;
+  }
+
+  /**
+   * Учитывает текст, находящийся в памяти.
+   */
+  public NgramProfileBuilder addText(CharSequence text) {
+    counter.merge(pool.invoke(new CharSegment(text, 0, text.length(), counter.getOrder(),
+        counter.isLettersOnly())));
+    return this;
+  }
+
+  /**
+   * @return накопленные счетчики; изменяются последующими вызовами add.
+   */
+  public NgramCounter getCounter() {
+    return counter;
+  }
+
+  /**
+   * @return профиль в виде {@link Frequency#getTrigramFrequency()}: n-граммы строчными буквами и их
+   *     частоты по убыванию.
+   */
+  public Map<String, Double> build() {
+    return counter.toFrequencyMap();
+  }
+
+  private static final class ByteSegment extends RecursiveTask<NgramCounter> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ByteBuffer bytes;
+    private final int from;
+    private final int to;
+    private final int order;
+    private final boolean lettersOnly;
+
+    ByteSegment(ByteBuffer bytes, int from, int to, int order, boolean lettersOnly) {
+      this.bytes = bytes;
+      this.from = from;
+      this.to = to;
+      this.order = order;
+      this.lettersOnly = lettersOnly;
+    }
+
+    @Override
+    protected NgramCounter compute() {
+      if (to - from <= SEGMENT_SIZE) {
+        int end = Math.min(bytes.limit(), to + order - 1);
+        if (lettersOnly) {
+          end = to;
+          for (int letters = 0; letters < order - 1 && end < bytes.limit(); end++) {
+            if (NgramCounter.letterIndex((char) (bytes.get(end) & 0xFF)) >= 0) {
+              letters++;
+            }
+          }
+        }
+        return new NgramCounter(order, lettersOnly).add(bytes, from, end);
+      }
+      int middle = from + (to - from) / 2;
+      ByteSegment left = new ByteSegment(bytes, from, middle, order, lettersOnly);
+      left.fork();
+      NgramCounter right = new ByteSegment(bytes, middle, to, order, lettersOnly).compute();
+      return left.join().merge(right);
+    }
+  }
+
+  private static final class CharSegment extends RecursiveTask<NgramCounter> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final CharSequence text;
+    private final int from;
+    private final int to;
+    private final int order;
+    private final boolean lettersOnly;
+
+    CharSegment(CharSequence text, int from, int to, int order, boolean lettersOnly) {
+      this.text = text;
+      this.from = from;
+      this.to = to;
+      this.order = order;
+      this.lettersOnly = lettersOnly;
+    }
+
+    @Override
+    protected NgramCounter compute() {
+      if (to - from <= SEGMENT_SIZE) {
+        int end = Math.min(text.length(), to + order - 1);
+        if (lettersOnly) {
+          end = to;
+          for (int letters = 0; letters < order - 1 && end < text.length(); end++) {
+            if (NgramCounter.letterIndex(text.charAt(end)) >= 0) {
+              letters++;
+            }
+          }
+        }
+        return new NgramCounter(order, lettersOnly).add(text.subSequence(from, end));
+      }
+      int middle = from + (to - from) / 2;
+      CharSegment left = new CharSegment(text, from, middle, order, lettersOnly);
+      left.fork();
+      NgramCounter right = new CharSegment(text, middle, to, order, lettersOnly).compute();
+      return left.join().merge(right);
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package alex.serov.task1.hack;
+
+import java.util.Arrays;
+
+/**
+ * Оценка ключей шифра замены для одного шифртекста по {@link NgramFitness}. Ключ задается как
+ * отображение буквы шифртекста в букву открытого текста (номера от 0 до 25). Шифртекст сводится
+ * к различным n-граммам с их количеством, и для каждой буквы запоминаются n-граммы, в которые
+ * она входит. Поэтому перестановка двух букв ключа пересчитывает только затронутые n-граммы, а
+ * не весь текст. Экземпляр не потокобезопасен: каждому потоку перебора нужен свой.
+ */
+public final class SubstitutionScorer {
+
+  private static final int LETTERS = NgramCounter.ALPHABET_SIZE;
+
+  private final NgramFitness fitness;
+  private final int order;
+  // Различные n-граммы шифртекста: буквы подряд по order на n-грамму, количество и маска букв.
+  private final byte[] letters;
+  private final long[] counts;
+  private final int[] masks;
+  // Номера n-грамм, содержащих каждую букву шифртекста.
+  private final int[][] ngramsByLetter;
+  // Коды n-грамм открытого текста при текущем ключе.
+  private final int[] plainCodes;
+  private final int[] key = new int[LETTERS];
+  private double score;
+
+  SubstitutionScorer(NgramFitness fitness, NgramCounter counter) {
+    this.fitness = fitness;
+    this.order = counter.getOrder();
+    int size = NgramCounter.getSize(order);
+    int distinct = 0;
+    for (int code = 0; code < size; code++) {
+      if (counter.getCount(code) != 0) {
+        distinct++;
+      }
+    }
+    letters = new byte[distinct * order];
+    counts = new long[distinct];
+    masks = new int[distinct];
+    plainCodes = new int[distinct];
+    int[] perLetter = new int[LETTERS];
+    int ngram = 0;
+    for (int code = 0; code < size; code++) {
+      if (counter.getCount(code) == 0) {
+        continue;
+      }
+      counts[ngram] = counter.getCount(code);
+      for (int i = order - 1, rest = code; i >= 0; i--, rest /= LETTERS) {
+        letters[ngram * order + i] = (byte) (rest % LETTERS);
+        masks[ngram] |= 1 << (rest % LETTERS);
+      }
+      for (int letter = 0; letter < LETTERS; letter++) {
+        if ((masks[ngram] & (1 << letter)) != 0) {
+          perLetter[letter]++;
+        }
+      }
+      ngram++;
+    }
+    ngramsByLetter = new int[LETTERS][];
+    for (int letter = 0; letter < LETTERS; letter++) {
+      ngramsByLetter[letter] = new int[perLetter[letter]];
+      perLetter[letter] = 0;
+    }
+    for (ngram = 0; ngram < distinct; ngram++) {
+      for (int letter = 0; letter < LETTERS; letter++) {
+        if ((masks[ngram] & (1 << letter)) != 0) {
+          ngramsByLetter[letter][perLetter[letter]++] = ngram;
+        }
+      }
+    }
+    for (int letter = 0; letter < LETTERS; letter++) {
+      key[letter] = letter;
+    }
+    rescore();
+  }
+
+  public NgramFitness getFitness() {
+    return fitness;
+  }
+
+  /**
+   * @return оценка текущего ключа: сумма логарифмов вероятностей n-грамм открытого текста.
+   */
+  public double getScore() {
+    return score;
+  }
+
+  /**
+   * @return копия ключа: key[буква шифртекста] = буква открытого текста.
+   */
+  public int[] getKey() {
+    return key.clone();
+  }
+
+  /**
+   * Устанавливает ключ и оценивает его заново по всем n-граммам.
+   *
+   * @param key перестановка чисел от 0 до 25: key[буква шифртекста] = буква открытого текста.
+   */
+  public void setKey(int[] key) {
+    int[] sorted = key.clone();
+    Arrays.sort(sorted);
+    if (sorted.length != LETTERS || !isIdentity(sorted)) {
+      throw new IllegalArgumentException("Key should be a permutation of 26 letters");
+    }
+    System.arraycopy(key, 0, this.key, 0, LETTERS);
+    rescore();
+  }
+
+  private static boolean isIdentity(int[] letters) {
+    for (int i = 0; i < letters.length; i++) {
+      if (letters[i] != i) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Пересчитывает оценку по всем n-граммам, устраняя накопленную погрешность сложений.
+   */
+  public void rescore() {
+    score = 0;
+    for (int ngram = 0; ngram < counts.length; ngram++) {
+      plainCodes[ngram] = plainCode(ngram, -1, -1);
+      score += counts[ngram] * fitness.getLogProbability(plainCodes[ngram]);
+    }
+  }
+
+  /**
+   * Вычисляет изменение оценки при обмене букв открытого текста, назначенных буквам шифртекста
+   * a и b, не изменяя ключ.
+   */
+  public double getSwapDelta(int a, int b) {
+    if (a == b) {
+      return 0;
+    }
+    double delta = 0;
+    for (int ngram : ngramsByLetter[a]) {
+      delta += counts[ngram] * (fitness.getLogProbability(plainCode(ngram, a, b))
+          - fitness.getLogProbability(plainCodes[ngram]));
+    }
+    int maskA = 1 << a;
+    for (int ngram : ngramsByLetter[b]) {
+      if ((masks[ngram] & maskA) == 0) {
+        delta += counts[ngram] * (fitness.getLogProbability(plainCode(ngram, a, b))
+            - fitness.getLogProbability(plainCodes[ngram]));
+      }
+    }
+    return delta;
+  }
+
+  /**
+   * Обменивает буквы открытого текста, назначенные буквам шифртекста a и b, и обновляет оценку.
+   *
+   * @return изменение оценки.
+   */
+  public double swap(int a, int b) {
+    if (a == b) {
+      return 0;
+    }
+    double delta = 0;
+    for (int ngram : ngramsByLetter[a]) {
+      delta += update(ngram, a, b);
+    }
+    int maskA = 1 << a;
+    for (int ngram : ngramsByLetter[b]) {
+      if ((masks[ngram] & maskA) == 0) {
+        delta += update(ngram, a, b);
+      }
+    }
+    int swap = key[a];
+    key[a] = key[b];
+    key[b] = swap;
+    score += delta;
+    return delta;
+  }
+
+  private double update(int ngram, int a, int b) {
+    int code = plainCode(ngram, a, b);
+    double delta = counts[ngram] * (fitness.getLogProbability(code)
+        - fitness.getLogProbability(plainCodes[ngram]));
+    plainCodes[ngram] = code;
+    return delta;
+  }
+
+  /**
+   * @return код n-граммы открытого текста при текущем ключе с переставленными a и b.
+   */
+  private int plainCode(int ngram, int a, int b) {
+    int code = 0;
+    for (int i = ngram * order; i < (ngram + 1) * order; i++) {
+      int letter = letters[i];
+      int plain = letter == a ? key[b] : letter == b ? key[a] : key[letter];
+      code = code * LETTERS + plain;
+    }
+    return code;
+  }
+}
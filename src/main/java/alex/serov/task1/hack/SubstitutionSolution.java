@@ -0,0 +1,68 @@
+package alex.serov.task1.hack;
+
+import alex.serov.task1.SingleAlphabetReplacementCipherImpl;
+
+/**
+ * Результат взлома шифра замены: полный ключ и его оценка. Экземпляр неизменяем.
+ */
+public final class SubstitutionSolution {
+
+  private final String key;
+  private final double score;
+  private final long restarts;
+
+  SubstitutionSolution(String key, double score, long restarts) {
+    this.key = key;
+    this.score = score;
+    this.restarts = restarts;
+  }
+
+  /**
+   * Переводит отображение букв шифртекста в буквы открытого текста в ключ
+   * {@link SingleAlphabetReplacementCipherImpl}: key[буква открытого текста] = буква шифртекста.
+   */
+  static String toCipherKey(int[] decryptionKey) {
+    char[] key = new char[decryptionKey.length];
+    for (int cipherLetter = 0; cipherLetter < decryptionKey.length; cipherLetter++) {
+      key[decryptionKey[cipherLetter]] = (char) ('a' + cipherLetter);
+    }
+    return new String(key);
+  }
+
+  /**
+   * @return ключ из 26 букв в формате {@link SingleAlphabetReplacementCipherImpl}.
+   */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return оценка ключа по {@link NgramFitness}; чем больше, тем правдоподобнее текст.
+   */
+  public double getScore() {
+    return score;
+  }
+
+  /**
+   * @return количество выполненных перезапусков поиска во всех потоках.
+   */
+  public long getRestarts() {
+    return restarts;
+  }
+
+  SubstitutionSolution withRestarts(long restarts) {
+    return new SubstitutionSolution(key, score, restarts);
+  }
+
+  /**
+   * @return открытый текст, полученный дешифрованием ciphertext найденным ключом.
+   */
+  public String decrypt(String ciphertext) {
+    return new SingleAlphabetReplacementCipherImpl(key).decrypt(ciphertext);
+  }
+
+  @Override
+  public String toString() {
+    return key + " (" + score + ")";
+  }
+}
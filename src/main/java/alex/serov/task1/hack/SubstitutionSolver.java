@@ -0,0 +1,210 @@
+package alex.serov.task1.hack;
+
+import alex.serov.task1.SingleAlphabetReplacementCipherImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Взлом шифра {@link SingleAlphabetReplacementCipherImpl} восхождением к вершине со случайными
+ * перезапусками. Каждый поток независимо обменивает пары букв ключа, пока обмены улучшают оценку
+ * {@link NgramFitness}, затем начинает заново: со случайного ключа или с лучшего ключа этого
+ * потока после нескольких случайных обменов, чтобы выбраться из локального максимума.
+ * Лучший найденный ключ общий для всех потоков и хранится в {@link AtomicReference}. Поиск
+ * заканчивается по истечении времени или когда заданное число перезапусков подряд не улучшило
+ * лучший результат; повторное нахождение того же ключа улучшением не считается, поэтому
+ * сошедшийся поиск останавливается. Экземпляр неизменяем и может использоваться для нескольких
+ * шифртекстов.
+ */
+public final class SubstitutionSolver {
+
+  public static final long DEFAULT_TIME_BUDGET_MILLIS = 10_000;
+  public static final int DEFAULT_PATIENCE = 200;
+  // Минимальный прирост оценки, который считается улучшением.
+  private static final double EPSILON = 1e-9;
+
+  private final NgramFitness fitness;
+  private final int threads;
+  private final long timeBudgetMillis;
+  private final int patience;
+
+  private SubstitutionSolver(NgramFitness fitness, int threads, long timeBudgetMillis,
+      int patience) {
+    this.fitness = fitness;
+    this.threads = threads;
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.patience = patience;
+  }
+
+  /**
+   * Создает решатель с функцией {@link NgramFitness#createDefault()}, потоком на каждое ядро и
+   * ограничениями по умолчанию.
+   */
+  public static SubstitutionSolver createInstance() {
+    return createInstance(NgramFitness.createDefault(), Runtime.getRuntime().availableProcessors(),
+        DEFAULT_TIME_BUDGET_MILLIS, DEFAULT_PATIENCE);
+  }
+
+  /**
+   * @param fitness          функция пригодности.
+   * @param threads          количество потоков поиска.
+   * @param timeBudgetMillis наибольшее время поиска в миллисекундах, больше нуля. Каждый поток
+   *                         успевает выполнить хотя бы одно восхождение, даже если время
+   *                         истекло раньше.
+   * @param patience         число перезапусков подряд без улучшения лучшей оценки более чем на
+   *                         1e-9, после которого поиск считается сошедшимся.
+   * @return решатель.
+   */
+  public static SubstitutionSolver createInstance(NgramFitness fitness, int threads,
+      long timeBudgetMillis, int patience) {
+    if (threads < 1 || timeBudgetMillis < 1 || patience < 1) {
+      throw new IllegalArgumentException("Invalid solver parameters");
+    }
+    return new SubstitutionSolver(fitness, threads, timeBudgetMillis, patience);
+  }
+
+  /**
+   * Ищет ключ шифртекста.
+   *
+   * @param ciphertext шифртекст.
+   * @return лучший найденный ключ.
+   */
+  public SubstitutionSolution solve(String ciphertext) {
+    long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000;
+    AtomicReference<SubstitutionSolution> best = new AtomicReference<>();
+    AtomicLong restarts = new AtomicLong();
+    AtomicLong sinceImprovement = new AtomicLong();
+    AtomicInteger threadIndex = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread =
+          new Thread(runnable, "substitution-solver-" + threadIndex.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<CompletableFuture<Void>> workers = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        workers.add(CompletableFuture.runAsync(() -> {
+          SubstitutionScorer scorer = fitness.prepare(ciphertext);
+          Random random = ThreadLocalRandom.current();
+          int[] local = null;
+          double localScore = Double.NEGATIVE_INFINITY;
+          do {
+            scorer.setKey(local == null || random.nextBoolean()
+                ? shuffle(scorer.getKey(), random) : perturb(local, random));
+            climb(scorer, deadline);
+            if (scorer.getScore() > localScore) {
+              local = scorer.getKey();
+              localScore = scorer.getScore();
+            }
+            restarts.incrementAndGet();
+            offer(best, sinceImprovement, scorer);
+          } while (System.nanoTime() < deadline && sinceImprovement.get() < patience);
+        }, executor));
+      }
+      CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException exception) {
+      if (exception.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw exception;
+    } finally {
+      executor.shutdownNow();
+    }
+    SubstitutionSolution solution = best.get();
+    if (solution == null) {
+      throw new IllegalStateException("No key has been evaluated");
+    }
+    return solution.withRestarts(restarts.get());
+  }
+
+  /**
+   * @return тот же массив, перемешанный на месте: случайный ключ.
+   */
+  private static int[] shuffle(int[] key, Random random) {
+    for (int i = key.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = key[i];
+      key[i] = key[j];
+      key[j] = swap;
+    }
+    return key;
+  }
+
+  /**
+   * @return копия ключа с несколькими случайными обменами пар букв.
+   */
+  private static int[] perturb(int[] key, Random random) {
+    int[] perturbed = key.clone();
+    for (int swaps = 2 + random.nextInt(3); swaps > 0; swaps--) {
+      int a = random.nextInt(key.length);
+      int b = random.nextInt(key.length);
+      int swap = perturbed[a];
+      perturbed[a] = perturbed[b];
+      perturbed[b] = swap;
+    }
+    return perturbed;
+  }
+
+  /**
+   * Выполняет улучшающие обмены пар букв ключа, пока они есть.
+   */
+  private static void climb(SubstitutionScorer scorer, long deadline) {
+    int[] key = scorer.getKey();
+    boolean improved = true;
+    while (improved && System.nanoTime() < deadline) {
+      improved = false;
+      for (int a = 0; a < key.length; a++) {
+        for (int b = a + 1; b < key.length; b++) {
+          if (scorer.getSwapDelta(a, b) > EPSILON) {
+            scorer.swap(a, b);
+            improved = true;
+          }
+        }
+      }
+    }
+    scorer.rescore();
+  }
+
+  /**
+   * Сравнивает результат потока с общим лучшим и обновляет счетчик перезапусков без улучшения.
+   */
+  private static void offer(AtomicReference<SubstitutionSolution> best,
+      AtomicLong sinceImprovement, SubstitutionScorer scorer) {
+    SubstitutionSolution candidate = new SubstitutionSolution(
+        SubstitutionSolution.toCipherKey(scorer.getKey()), scorer.getScore(), 0);
+    SubstitutionSolution previous = best.getAndAccumulate(candidate,
+        (current, offered) -> current == null || offered.getScore() > current.getScore()
+            ? offered : current);
+    if (previous == null || candidate.getScore() > previous.getScore() + EPSILON) {
+      sinceImprovement.set(0);
+    } else {
+      sinceImprovement.incrementAndGet();
+    }
+  }
+
+  public static void main(String[] args) {
+    String message = """
+        One morning, when Gregor Samsa woke from troubled dreams, he found himself transformed \
+        in his bed into a horrible vermin. He lay on his armour-like back, and if he lifted his \
+        head a little he could see his brown belly, slightly domed and divided by arches into \
+        stiff sections. The bedding was hardly able to cover it and seemed ready to slide off \
+        any moment. His many legs, pitifully thin compared with the size of the rest of him, \
+        waved about helplessly as he looked.""";
+    String key = "qwertyuiopasdfghjklzxcvbnm";
+    String ciphertext = new SingleAlphabetReplacementCipherImpl(key).encrypt(message);
+    SubstitutionSolution solution = SubstitutionSolver.createInstance().solve(ciphertext);
+    System.out.println("Key:       " + key);
+    System.out.println("Found key: " + solution.getKey() + ", score " + solution.getScore()
+        + ", restarts " + solution.getRestarts());
+    System.out.println(solution.decrypt(ciphertext));
+  }
+}
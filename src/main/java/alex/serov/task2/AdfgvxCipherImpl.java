@@ -1,170 +1,273 @@
 package alex.serov.task2;
 
 import alex.serov.Cipher;
-import java.util.ArrayList;
+import alex.serov.TextCodec;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Реализация шифра ADFGVX на основе интерфейса Cipher. Этот шифр использует матрицу 6x6 с символами
  * A, D, F, G, V, X, а также процессы шифрования и дешифрования с использованием этой матрицы и
- * ключа.
+ * ключа. Символ заменяется парой координат по таблице на 128 символов ASCII, после чего пары
+ * переставляются по столбцам в порядке букв ключа. Последняя строка таблицы транспозиции может
+ * быть неполной, дополнение не используется.
  */
 public final class AdfgvxCipherImpl implements Cipher {
 
+  /**
+   * Количество символов столбца, которое потоковое шифрование держит в памяти.
+   */
+  public static final int DEFAULT_SPILL_THRESHOLD = 64 * 1024;
   private static final int ROWS = 6;
   private static final int COLUMNS = 6;
-  private final Character[][] cryptoMatrix;
-  private static final Character[] matrixSymbols = new Character[]{'A', 'D', 'F', 'G', 'V', 'X'};
+  private static final int TABLE_SIZE = 128;
+  private static final char[] matrixSymbols = new char[]{'A', 'D', 'F', 'G', 'V', 'X'};
+  /**
+   * Индекс символа в {@link #matrixSymbols} или -1.
+   */
+  private static final byte[] symbolIndexes = new byte[TABLE_SIZE];
+
+  static {
+    Arrays.fill(symbolIndexes, (byte) -1);
+    for (int i = 0; i < matrixSymbols.length; i++) {
+      symbolIndexes[matrixSymbols[i]] = (byte) i;
+    }
+  }
+
+  private final char[] cryptoMatrix;
+  /**
+   * Позиция символа в матрице (строка * 6 + столбец) или -1 для символов вне матрицы.
+   */
+  private final byte[] coordinates;
   private final String key;
+  /**
+   * Номера столбцов таблицы транспозиции в порядке букв ключа; для одинаковых букв сохраняется
+   * порядок следования в ключе.
+   */
+  private final int[] columnOrder;
 
   /**
    * Конструктор, инициализирующий объект AdfgvxCipher с использованием строки шифра.
    * Строка шифра используется для заполнения матрицы 6x6.
    *
-   * @param cipherString строка, представляющая матрицу шифра.
+   * @param cipherString строка из 36 символов ASCII, представляющая матрицу шифра.
+   * @param key          непустой ключ транспозиции.
    * @throws IllegalArgumentException если длина строки шифра не равна 36 (6x6).
    */
   public AdfgvxCipherImpl(String cipherString, String key) {
     if (cipherString.length() != ROWS * COLUMNS) {
       throw new IllegalArgumentException("Длина строки шифра должна быть равна 36 (6x6).");
     }
-    int count = 0;
-    this.cryptoMatrix = new Character[ROWS][COLUMNS];
-    for (Character c : cipherString.toCharArray()) {
-      this.cryptoMatrix[count / (ROWS)][count % (COLUMNS)] = c;
-      count++;
+    if (key.isEmpty()) {
+      throw new IllegalArgumentException("Ключ не должен быть пустым.");
+    }
+    this.cryptoMatrix = cipherString.toCharArray();
+    this.coordinates = new byte[TABLE_SIZE];
+    Arrays.fill(coordinates, (byte) -1);
+    for (int i = cryptoMatrix.length - 1; i >= 0; i--) {
+      char c = cryptoMatrix[i];
+      if (c >= TABLE_SIZE) {
+        throw new IllegalArgumentException("Матрица шифра должна состоять из символов ASCII.");
+      }
+      // Обход с конца: при повторе символа остается его первое вхождение.
+      coordinates[c] = (byte) i;
     }
     this.key = key;
+    this.columnOrder = IntStream.range(0, key.length()).boxed()
+        .sorted(Comparator.comparingInt(key::charAt))
+        .mapToInt(Integer::intValue)
+        .toArray();
   }
 
   /**
-   * Метод для шифрования отдельного символа ADFGVX.
+   * Заменяет символы парами координат. Символы вне матрицы переносятся без изменений.
    *
-   * @param c символ для шифрования.
-   * @return зашифрованное представление символа.
+   * @param message текст в верхнем регистре.
+   * @return промежуточный текст.
+   * @throws IllegalArgumentException если символ вне матрицы совпадает с одной из букв ADFGVX.
    */
-  private String encryptSymbol(Character c) {
-    for (int i = 0; i < ROWS; i++) {
-      for (int j = 0; j < COLUMNS; j++) {
-        if (this.cryptoMatrix[i][j] == c) {
-          return "" + matrixSymbols[i] + matrixSymbols[j];
-        }
+  private char[] fractionate(String message) {
+    char[] result = new char[2 * message.length()];
+    int length = 0;
+    for (int i = 0; i < message.length(); i++) {
+      char c = message.charAt(i);
+      int position = c < TABLE_SIZE ? coordinates[c] : -1;
+      if (position >= 0) {
+        result[length++] = matrixSymbols[position / COLUMNS];
+        result[length++] = matrixSymbols[position % COLUMNS];
+      } else if (c < TABLE_SIZE && symbolIndexes[c] >= 0) {
+        throw new IllegalArgumentException("Символ " + c + " отсутствует в матрице шифра.");
+      } else {
+        result[length++] = c;
       }
     }
-    return String.valueOf(c);
+    return Arrays.copyOf(result, length);
   }
 
   /**
-   * Метод для дешифрования двухсимвольного символа ADFGVX.
-   * В случае если этот символ представлен единичным символом, возвращает его же
+   * Восстанавливает символы по парам координат; прочие символы переносятся без изменений.
    *
-   * @param s двухсимвольный символ для дешифрования.
-   * @return дешифрованное представление символа.
+   * @throws IllegalArgumentException если пара координат неполная.
    */
-  private String decryptSymbol(String s) {
-    if (s.length() > 1) {
-      int pozX = findIndexMatrixSymbol(s.charAt(0));
-      int pozY = findIndexMatrixSymbol(s.charAt(1));
-      return String.valueOf(cryptoMatrix[pozX][pozY]);
+  private String defractionate(char[] symbols) {
+    StringBuilder result = new StringBuilder(symbols.length);
+    for (int i = 0; i < symbols.length; i++) {
+      char c = symbols[i];
+      int row = c < TABLE_SIZE ? symbolIndexes[c] : -1;
+      if (row < 0) {
+        result.append(c);
+        continue;
+      }
+      int column = ++i < symbols.length && symbols[i] < TABLE_SIZE ? symbolIndexes[symbols[i]] : -1;
+      if (column < 0) {
+        throw new IllegalArgumentException("Символ не найден");
+      }
+      result.append(cryptoMatrix[row * COLUMNS + column]);
     }
-    return s;
+    return result.toString();
   }
 
   /**
-   * Метод для поиска индекса символа в массиве matrixSymbols.
-   *
-   * @param symbol символ для поиска.
-   * @return индекс символа.
-   * @throws IllegalArgumentException если символ не найден.
+   * @return количество символов в столбце column таблицы с length символами.
    */
-  private static int findIndexMatrixSymbol(char symbol) {
-    for (int i = 0; i < matrixSymbols.length; i++) {
-      if (symbol == matrixSymbols[i]) {
-        return i;
-      }
-    }
-    throw new IllegalArgumentException("Символ не найден");
+  private int getColumnLength(int column, int length) {
+    return length / key.length() + (column < length % key.length() ? 1 : 0);
   }
 
   @Override
   public String encrypt(String message) {
-    StringBuilder encryptedMessage = message.toUpperCase().chars()
-        .mapToObj(c -> encryptSymbol((char) c))
-        .collect(StringBuilder::new, StringBuilder::append, StringBuilder::append);
-
-    int numRows = (int) Math.round((double) encryptedMessage.toString().length() / key.length());
-    char[][] matrix = new char[key.length()][numRows];
+    char[] symbols = fractionate(message.toUpperCase());
+    int width = key.length();
+    char[] result = new char[symbols.length];
     int index = 0;
-    for (int i = 0; i < numRows; i++) {
-      for (int j = 0; j < key.length(); j++) {
-        if (index < encryptedMessage.toString().length()) {
-          matrix[j][i] = encryptedMessage.toString().charAt(index);
-        } else {
-          matrix[j][i] = '\0'; // символ null
-        }
-        index++;
+    for (int column : columnOrder) {
+      for (int i = column; i < symbols.length; i += width) {
+        result[index++] = symbols[i];
       }
     }
+    return new String(result);
+  }
+
+  /**
+   * Шифрует текст из source в target, не храня его целиком: промежуточные символы раскладываются
+   * по столбцам, которые при превышении {@link #DEFAULT_SPILL_THRESHOLD} символов переносятся во
+   * временные файлы. Результат совпадает с {@link #encrypt(String)}.
+   *
+   * @param source исходный текст.
+   * @param target получатель шифртекста.
+   * @return количество записанных символов.
+   * @throws IOException при ошибке ввода-вывода.
+   */
+  public long encrypt(Reader source, Writer target) throws IOException {
+    return encrypt(source, target, DEFAULT_SPILL_THRESHOLD);
+  }
 
-    Map<Character, char[]> map = new LinkedHashMap<>();
-    for (int i = 0; i < key.length(); i++) {
-      map.put(key.charAt(i), matrix[i]);
+  /**
+   * Потоковое шифрование с заданным порогом. Памяти требуется порядка
+   * key.length() * spillThreshold символов независимо от длины текста.
+   *
+   * @param source         исходный текст.
+   * @param target         получатель шифртекста.
+   * @param spillThreshold количество символов столбца, хранимых в памяти.
+   * @return количество записанных символов.
+   * @throws IOException при ошибке ввода-вывода.
+   */
+  public long encrypt(Reader source, Writer target, int spillThreshold) throws IOException {
+    if (spillThreshold <= 0) {
+      throw new IllegalArgumentException("Spill threshold should be positive.");
+    }
+    AdfgvxColumnBuffer[] columns = new AdfgvxColumnBuffer[key.length()];
+    try {
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = new AdfgvxColumnBuffer(spillThreshold);
+      }
+      char[] chunk = new char[TextCodec.CHUNK_SIZE + 1];
+      int carried = 0;
+      int column = 0;
+      int read;
+      while ((read = source.read(chunk, carried, TextCodec.CHUNK_SIZE)) >= 0) {
+        int length = carried + read;
+        // Старшая половина суррогатной пары переносится в следующую порцию.
+        carried = length > 0 && Character.isHighSurrogate(chunk[length - 1]) ? 1 : 0;
+        column = distribute(new String(chunk, 0, length - carried), columns, column);
+        if (carried > 0) {
+          chunk[0] = chunk[length - 1];
+        }
+      }
+      distribute(new String(chunk, 0, carried), columns, column);
+      long written = 0;
+      for (int index : columnOrder) {
+        written += columns[index].transferTo(target);
+      }
+      return written;
+    } finally {
+      for (AdfgvxColumnBuffer buffer : columns) {
+        if (buffer != null) {
+          buffer.close();
+        }
+      }
     }
+  }
 
-    StringBuilder finishMessage = new StringBuilder();
-    map.entrySet().stream()
-        .sorted(Comparator.comparingInt(e -> (int) e.getKey()))
-        .forEach(entry -> finishMessage.append(entry.getValue()));
-    return finishMessage.toString();
+  /**
+   * @return столбец для следующего промежуточного символа.
+   */
+  private int distribute(String text, AdfgvxColumnBuffer[] columns, int column)
+      throws IOException {
+    for (char symbol : fractionate(text.toUpperCase())) {
+      columns[column].append(symbol);
+      if (++column == columns.length) {
+        column = 0;
+      }
+    }
+    return column;
   }
 
   @Override
   public String decrypt(String message) {
-    int numRows = (int) Math.round((double) message.length() / key.length());
-    char[][] matrix = new char[key.length()][numRows];
+    int length = message.length();
+    int width = key.length();
+    char[] symbols = new char[length];
     int index = 0;
-
-    for (int i = 0; i < key.length(); i++) {
-      for (int j = 0; j < numRows; j++) {
-        if (index < message.length()) {
-          matrix[i][j] = message.charAt(index);
-        } else {
-          matrix[i][j] = '\0'; // null character
-        }
-        index++;
+    for (int column : columnOrder) {
+      int end = column + getColumnLength(column, length) * width;
+      for (int i = column; i < end; i += width) {
+        symbols[i] = message.charAt(index++);
       }
     }
+    return defractionate(symbols);
+  }
 
-    char[] keySortArray = key.toCharArray();
-    Arrays.sort(keySortArray);
-    String keySort = new String(keySortArray);
-
-    Map<Character, char[]> tempMap = new LinkedHashMap<>();
-    for (int i = 0; i < keySort.length(); i++) {
-      tempMap.put(keySort.charAt(i), matrix[i]);
-    }
+  /**
+   * Транспозиция требует всего текста сразу, поэтому данные декодируются из UTF-8 целиком.
+   */
+  @Override
+  public int encrypt(ByteBuffer src, ByteBuffer dst) {
+    return TextCodec.encode(encrypt(TextCodec.decode(src)), dst);
+  }
 
-    List<char[]> sortPairs = new ArrayList<>();
-    for (Character c : key.toCharArray()) {
-      char[] pair = tempMap.get(c);
-      sortPairs.add(pair);
-      tempMap.remove(c);
-    }
+  @Override
+  public int decrypt(ByteBuffer src, ByteBuffer dst) {
+    return TextCodec.encode(decrypt(TextCodec.decode(src)), dst);
+  }
 
-    StringBuilder builder = new StringBuilder();
-    for (int i = 0; i < message.length(); i++) {
-      builder.append(sortPairs.get(i % 3)[i / 3]);
-    }
+  /**
+   * Символ матрицы превращается в пару символов, а перевод в верхний регистр может заменить символ
+   * несколькими.
+   */
+  @Override
+  public int getEncryptedSize(int length) {
+    return TextCodec.getMaxEncodedSize(length);
+  }
 
-    String[] split = builder.toString().split("(?<=\\G[A-Z]{2}|[^A-Z])");
-    return Arrays.stream(split)
-        .map(this::decryptSymbol)
-        .collect(Collectors.joining());
+  @Override
+  public int getDecryptedSize(int length) {
+    return length;
   }
 
   public static void main(String[] args) {
@@ -0,0 +1,105 @@
+package alex.serov.task2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Столбец таблицы транспозиции ADFGVX для потокового шифрования. Символы накапливаются в памяти;
+ * когда их становится больше порога, буфер сбрасывается во временный файл и далее служит буфером
+ * записи. Символы хранятся как UTF-16BE без проверки, потому что столбец может содержать половину
+ * суррогатной пары. Временный файл удаляется при закрытии.
+ */
+final class AdfgvxColumnBuffer implements Closeable {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int threshold;
+  private char[] symbols;
+  private int length;
+  private byte[] bytes;
+  private Path file;
+  private OutputStream output;
+
+  AdfgvxColumnBuffer(int threshold) {
+    this.threshold = threshold;
+    this.symbols = new char[Math.min(INITIAL_CAPACITY, threshold)];
+  }
+
+  void append(char symbol) throws IOException {
+    if (length == symbols.length) {
+      if (length < threshold) {
+        symbols = Arrays.copyOf(symbols, Math.min(threshold, 2 * length));
+      } else {
+        spill();
+      }
+    }
+    symbols[length++] = symbol;
+  }
+
+  private void spill() throws IOException {
+    if (output == null) {
+      file = Files.createTempFile("adfgvx", ".column");
+      output = Files.newOutputStream(file);
+      bytes = new byte[2 * threshold];
+    }
+    for (int i = 0; i < length; i++) {
+      bytes[2 * i] = (byte) (symbols[i] >>> 8);
+      bytes[2 * i + 1] = (byte) symbols[i];
+    }
+    output.write(bytes, 0, 2 * length);
+    length = 0;
+  }
+
+  /**
+   * Записывает содержимое столбца в target.
+   *
+   * @return количество записанных символов.
+   */
+  long transferTo(Writer target) throws IOException {
+    if (output == null) {
+      target.write(symbols, 0, length);
+      return length;
+    }
+    spill();
+    output.close();
+    output = null;
+    long written = 0;
+    try (InputStream input = Files.newInputStream(file)) {
+      int read;
+      int pending = 0;
+      while ((read = input.read(bytes, pending, bytes.length - pending)) >= 0) {
+        int available = pending + read;
+        int count = available / 2;
+        for (int i = 0; i < count; i++) {
+          symbols[i] = (char) ((bytes[2 * i] & 0xFF) << 8 | bytes[2 * i + 1] & 0xFF);
+        }
+        target.write(symbols, 0, count);
+        written += count;
+        pending = available % 2;
+        if (pending > 0) {
+          bytes[0] = bytes[available - 1];
+        }
+      }
+    }
+    return written;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (output != null) {
+        output.close();
+      }
+    } finally {
+      if (file != null) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+}
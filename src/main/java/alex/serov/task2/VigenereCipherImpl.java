@@ -1,20 +1,128 @@
 package alex.serov.task2;
 
-import alex.serov.Cipher;
+import alex.serov.Alphabet;
+import alex.serov.TextCipher;
+import java.lang.reflect.Method;
 import java.util.Scanner;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
- * Реализация шифра Виженера на основе интерфейса Cipher. Шифр Виженера использует ключевое слово и
- * процедуры шифрования и дешифрования для обработки сообщений.
+ * Реализация шифра Виженера на основе интерфейса TextCipher. Шифр Виженера использует ключевое
+ * слово и процедуры шифрования и дешифрования для обработки сообщений.
  */
-public class VigenereCipherImpl implements Cipher {
+public class VigenereCipherImpl implements TextCipher {
+
+  /**
+   * Ключи не длиннее этого значения обрабатываются через таблицы замен.
+   */
+  static final int MAX_TABLE_KEY_LENGTH = 4096;
+  private static final char FIRST_SYMBOL = 'А';
+  private static final int TABLE_WIDTH = 'я' - FIRST_SYMBOL + 1;
+  /**
+   * Более короткие фрагменты обрабатываются через таблицы и без векторной реализации.
+   */
+  static final int MIN_VECTOR_LENGTH = 64;
+  private static final String VECTOR_KERNEL = "alex.serov.task2.VigenereVectorKernel";
+  private static final boolean VECTOR_AVAILABLE =
+      ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
 
   private final String key;
+  private final char[] encryptTable;
+  private final char[] decryptTable;
+  private final VigenereKernel encryptKernel;
+  private final VigenereKernel decryptKernel;
+  private final Alphabet alphabet;
+  private final int[] encryptShifts;
+  private final int[] decryptShifts;
 
+  /**
+   * Шифр над диапазоном А..я по прежней формуле (m + k + 33) % 33: буква ё и буквы других
+   * алфавитов обрабатываются некорректно, но результат совместим с ранее зашифрованными текстами.
+   *
+   * @param key ключ.
+   */
   VigenereCipherImpl(String key) {
     this.key = key;
+    this.encryptTable = createTable(key, 1);
+    this.decryptTable = createTable(key, -1);
+    this.encryptKernel = createVectorKernel(key, 1);
+    this.decryptKernel = createVectorKernel(key, -1);
+    this.alphabet = null;
+    this.encryptShifts = null;
+    this.decryptShifts = null;
+  }
+
+  /**
+   * Шифр над заданным алфавитом: буквы сдвигаются по кругу на индекс буквы ключа с сохранением
+   * регистра, остальные символы не изменяются, но занимают позицию ключа.
+   *
+   * @param key      непустой ключ из букв алфавита.
+   * @param alphabet алфавит, например {@link Alphabet#RUSSIAN}.
+   */
+  public VigenereCipherImpl(String key, Alphabet alphabet) {
+    if (key.isEmpty()) {
+      throw new IllegalArgumentException("Key should not be empty.");
+    }
+    this.key = key;
+    this.encryptTable = null;
+    this.decryptTable = null;
+    this.encryptKernel = null;
+    this.decryptKernel = null;
+    this.alphabet = alphabet;
+    this.encryptShifts = new int[key.length()];
+    this.decryptShifts = new int[key.length()];
+    for (int i = 0; i < key.length(); i++) {
+      int index = alphabet.indexOf(key.charAt(i));
+      if (index < 0) {
+        throw new IllegalArgumentException("Key symbol is not in the alphabet: " + key.charAt(i));
+      }
+      encryptShifts[i] = index;
+      decryptShifts[i] = (alphabet.size() - index) % alphabet.size();
+    }
+  }
+
+  /**
+   * Создает векторную реализацию, если JVM запущена с модулем jdk.incubator.vector
+   * (--add-modules jdk.incubator.vector), а ключ состоит из букв А..я. Класс реализации лежит в
+   * src/main/java-vector, компилируется и попадает в jar при сборке build.sh и загружается через
+   * отражение, поэтому без модуля или без этого класса шифр работает в скалярном режиме.
+   *
+   * @return векторная реализация или null.
+   */
+  private static VigenereKernel createVectorKernel(String key, int sign) {
+    if (!VECTOR_AVAILABLE) {
+      return null;
+    }
+    try {
+      Class<?> kernelClass = Class.forName(VECTOR_KERNEL);
+      Method isSupported = kernelClass.getDeclaredMethod("isSupported", String.class);
+      if (!(boolean) isSupported.invoke(null, key)) {
+        return null;
+      }
+      return (VigenereKernel) kernelClass.getDeclaredConstructor(String.class, int.class)
+          .newInstance(key, sign);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Строит таблицу замен букв А..я для каждой позиции ключа: строка i содержит результат
+   * {@link #crypt(char, char, int)} с символом ключа key[i].
+   *
+   * @return таблица из key.length() строк по {@link #TABLE_WIDTH} символов или null для длинного
+   *     ключа.
+   */
+  private static char[] createTable(String key, int sign) {
+    if (key.length() > MAX_TABLE_KEY_LENGTH) {
+      return null;
+    }
+    char[] table = new char[key.length() * TABLE_WIDTH];
+    for (int i = 0; i < key.length(); i++) {
+      for (int j = 0; j < TABLE_WIDTH; j++) {
+        table[i * TABLE_WIDTH + j] = crypt((char) (FIRST_SYMBOL + j), key.charAt(i), sign);
+      }
+    }
+    return table;
   }
 
   /**
@@ -26,33 +134,102 @@ public class VigenereCipherImpl implements Cipher {
    * @return зашифрованное или дешифрованное сообщение.
    */
   public static String crypt(String message, String key, int sign) {
+    char[] symbols = message.toCharArray();
+    crypt(symbols, 0, symbols.length, 0, key, sign);
+    return new String(symbols);
+  }
+
+  /**
+   * Шифрует или дешифрует символы массива на месте.
+   *
+   * @param symbols  массив символов.
+   * @param offset   индекс первого символа.
+   * @param length   количество символов.
+   * @param position номер первого символа в сообщении, определяющий сдвиг по ключу.
+   * @param key      ключ для шифрования или дешифрования.
+   * @param sign     знак, определяющий направление обработки (шифрование или дешифрование).
+   */
+  static void crypt(char[] symbols, int offset, int length, long position, String key, int sign) {
     int keyLength = key.length();
+    int keyIndex = (int) (position % keyLength);
+    for (int i = offset; i < offset + length; i++) {
+      symbols[i] = crypt(symbols[i], key.charAt(keyIndex), sign);
+      if (++keyIndex == keyLength) {
+        keyIndex = 0;
+      }
+    }
+  }
+
+  /**
+   * Шифрует или дешифрует один символ. Символы, не являющиеся буквами, не изменяются.
+   */
+  static char crypt(char symbol, char keySymbol, int sign) {
+    if (!Character.isLetter(symbol)) {
+      return symbol;
+    }
+    char base = Character.isLowerCase(symbol) ? 'а' : 'А';
+    int messageChar = symbol - base;
+    int keyChar = keySymbol - base;
+    return (char) ((messageChar + sign * keyChar + 33) % 33 + base);
+  }
+
+  /**
+   * Табличный вариант {@link #crypt(char[], int, int, long, String, int)}: буквы А..я заменяются
+   * по строке таблицы для текущей позиции ключа, остальные символы обрабатываются по формуле.
+   * Длинные фрагменты передаются векторной реализации, если она доступна.
+   */
+  private void crypt(char[] symbols, int offset, int length, long position, char[] table,
+      VigenereKernel kernel, int sign) {
+    if (alphabet != null) {
+      shift(symbols, offset, length, position, sign > 0 ? encryptShifts : decryptShifts);
+      return;
+    }
+    if (kernel != null && length >= MIN_VECTOR_LENGTH) {
+      kernel.crypt(symbols, offset, length, (int) (position % key.length()));
+      return;
+    }
+    if (table == null) {
+      crypt(symbols, offset, length, position, key, sign);
+      return;
+    }
+    int keyLength = key.length();
+    int keyIndex = (int) (position % keyLength);
+    int row = keyIndex * TABLE_WIDTH;
+    for (int i = offset; i < offset + length; i++) {
+      char symbol = symbols[i];
+      int index = symbol - FIRST_SYMBOL;
+      if (index >= 0 && index < TABLE_WIDTH) {
+        symbols[i] = table[row + index];
+      } else if (symbol >= 'A') {
+        // Среди символов до 'A' букв нет, это пробелы, цифры и знаки препинания.
+        symbols[i] = crypt(symbol, key.charAt(keyIndex), sign);
+      }
+      row += TABLE_WIDTH;
+      if (++keyIndex == keyLength) {
+        keyIndex = 0;
+        row = 0;
+      }
+    }
+  }
 
-    return IntStream.range(0, message.length())
-        .mapToObj(i -> {
-          char symbol = message.charAt(i);
-          if (Character.isLetter(symbol)) {
-            char base = Character.isLowerCase(symbol) ? 'а' : 'А';
-            int messageChar = symbol - base;
-            int keyChar = key.charAt(i % keyLength) - base;
-            int cryptoChar = (messageChar + sign * keyChar + 33) % 33 + base;
-            return (char) cryptoChar;
-          } else {
-            return symbol;
-          }
-        })
-        .map(String::valueOf)
-        .collect(Collectors.joining());
+  private void shift(char[] symbols, int offset, int length, long position, int[] shifts) {
+    int keyIndex = (int) (position % shifts.length);
+    for (int i = offset; i < offset + length; i++) {
+      symbols[i] = alphabet.shift(symbols[i], shifts[keyIndex]);
+      if (++keyIndex == shifts.length) {
+        keyIndex = 0;
+      }
+    }
   }
 
   @Override
-  public String encrypt(String message) {
-    return crypt(message, key, 1);
+  public void encrypt(char[] symbols, int offset, int length, long position) {
+    crypt(symbols, offset, length, position, encryptTable, encryptKernel, 1);
   }
 
   @Override
-  public String decrypt(String message) {
-    return crypt(message, key, -1);
+  public void decrypt(char[] symbols, int offset, int length, long position) {
+    crypt(symbols, offset, length, position, decryptTable, decryptKernel, -1);
   }
 
   public static void main(String[] args) {
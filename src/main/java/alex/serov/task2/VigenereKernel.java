@@ -0,0 +1,17 @@
+package alex.serov.task2;
+
+/**
+ * Ускоренная реализация шифрования Виженера для одного ключа и направления.
+ */
+interface VigenereKernel {
+
+  /**
+   * Шифрует или дешифрует символы массива на месте.
+   *
+   * @param symbols  массив символов.
+   * @param offset   индекс первого символа.
+   * @param length   количество символов.
+   * @param keyIndex позиция ключа для первого символа.
+   */
+  void crypt(char[] symbols, int offset, int length, int keyIndex);
+}
@@ -0,0 +1,101 @@
+package alex.serov.task3;
+
+import java.math.BigInteger;
+
+/**
+ * Слово произвольной ширины, кратной 8, поверх {@link ExpBigInt}. Интерфейс тот же, что у
+ * примитивных слов, но каждая операция выделяет новое значение.
+ */
+final class BigWord extends Word {
+
+  private ExpBigInt value;
+
+  BigWord(int width) {
+    if (width <= 0 || width % Byte.SIZE != 0) {
+      throw new IllegalArgumentException("Ширина слова должна быть положительной и кратной 8");
+    }
+    value = new ExpBigInt(BigInteger.ZERO, width);
+  }
+
+  @Override
+  public int getWidth() {
+    return value.getSize();
+  }
+
+  @Override
+  public Word set(Word other) {
+    value = ((BigWord) other).value;
+    return this;
+  }
+
+  @Override
+  public Word set(BigInteger value) {
+    this.value = new ExpBigInt(BigInteger.ZERO, getWidth()).add(value);
+    return this;
+  }
+
+  @Override
+  public Word add(Word other) {
+    value = value.add(((BigWord) other).value);
+    return this;
+  }
+
+  @Override
+  public Word subtract(Word other) {
+    value = value.subtract(((BigWord) other).value);
+    return this;
+  }
+
+  @Override
+  public Word xor(Word other) {
+    value = value.xor(((BigWord) other).value);
+    return this;
+  }
+
+  @Override
+  public Word rotateLeft(int distance) {
+    value = value.cycleShiftLeft(distance);
+    return this;
+  }
+
+  @Override
+  public Word rotateRight(int distance) {
+    value = value.cycleShift(-distance);
+    return this;
+  }
+
+  @Override
+  protected int getRotation() {
+    return value.getRotation();
+  }
+
+  @Override
+  public Word load(byte[] bytes, int offset) {
+    value = new ExpBigInt(new BigInteger(1, bytes, offset, getByteSize()), getWidth());
+    return this;
+  }
+
+  @Override
+  public void store(byte[] bytes, int offset) {
+    byte[] magnitude = value.getElement().toByteArray();
+    int size = getByteSize();
+    int length = Math.min(magnitude.length, size);
+    int padding = size - length;
+    for (int i = 0; i < padding; i++) {
+      bytes[offset + i] = 0;
+    }
+    System.arraycopy(magnitude, magnitude.length - length, bytes, offset + padding, length);
+  }
+
+  @Override
+  public Word copy() {
+    BigWord copy = new BigWord(getWidth());
+    copy.value = value;
+    return copy;
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return value.getElement();
+  }
+}
@@ -2,8 +2,12 @@ package alex.serov.task3;
 
 import alex.serov.BitConversion;
 import java.math.BigInteger;
-import java.util.Arrays;
 
+/**
+ * Неизменяемое слово произвольной ширины поверх {@link BigInteger}. Каждая операция создает новый
+ * объект; для раундов RC5 используется изменяемый {@link Word}, а этот класс служит ему
+ * адаптером для ширин без примитивного представления.
+ */
 public class ExpBigInt {
 
   private final BigInteger element;
@@ -26,43 +30,25 @@ public class ExpBigInt {
     return element;
   }
 
+  public int getSize() {
+    return size;
+  }
+
   public String toString(int radix) {
     String result = element.toString(radix);
     return BitConversion.getRepeat(result, size) + result;
   }
 
-  private char[] padCharArray() {
-    String binaryString = element.toString(2);
-    if (binaryString.length() == size) {
-      return binaryString.toCharArray();
-    }
-    char[] result = new char[size];
-    Arrays.fill(result, '0');
-
-    int resultIndex = size - binaryString.length();
-    for (char bit : binaryString.toCharArray()) {
-      result[resultIndex++] = bit;
-    }
-    return result;
-  }
-
+  /**
+   * Циклический сдвиг влево на n бит (вправо при отрицательном n) в пределах ширины слова.
+   */
   public ExpBigInt cycleShift(int n) {
-    char[] chars = padCharArray();
-    n = n % size; // Обработка смещения, учитывая размер массива
-    if (n < 0) {
-      n = size + n; // Обработка отрицательного смещения
-    }
-    char[] result = new char[size];
-    for (int i = 0; i < size; i++) {
-      int newPosition = (i - n + size) % size;
-      result[newPosition] = chars[i];
-    }
-    StringBuilder binaryStr = new StringBuilder();
-    for (char bit : result) {
-      binaryStr.append(bit);
+    n = Math.floorMod(n, size);
+    if (n == 0) {
+      return this;
     }
-    BigInteger shiftedElement = new BigInteger(binaryStr.toString(), 2);
-    return new ExpBigInt(shiftedElement, size);
+    BigInteger shifted = element.shiftLeft(n).or(element.shiftRight(size - n)).mod(modulo);
+    return new ExpBigInt(shifted, size);
   }
 
   public ExpBigInt cycleShiftLeft(int n) {
@@ -70,11 +56,18 @@ public class ExpBigInt {
   }
 
   public ExpBigInt cycleShiftLeft(ExpBigInt b) {
-    return cycleShift(b.element.intValue());
+    return cycleShift(b.getRotation());
   }
 
   public ExpBigInt cycleShiftRight(ExpBigInt b) {
-    return cycleShift(-b.element.intValue());
+    return cycleShift(-b.getRotation());
+  }
+
+  /**
+   * @return значение по модулю ширины слова, то есть величина сдвига в раундах RC5.
+   */
+  int getRotation() {
+    return element.mod(BigInteger.valueOf(size)).intValue();
   }
 
   public ExpBigInt add(BigInteger b) {
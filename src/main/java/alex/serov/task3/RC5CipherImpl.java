@@ -1,41 +1,103 @@
 package alex.serov.task3;
 
-import static alex.serov.BitConversion.stringToBinary;
-
-import alex.serov.BitConversion;
 import alex.serov.Cipher;
-import java.math.BigInteger;
+import alex.serov.CipherSession;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
 
+/**
+ * Шифр RC5 в режимах ECB, CBC и CTR. Экземпляр неизменяем: расширенный ключ и режим задаются при
+ * создании, а каждая операция открывает собственный сеанс. Поэтому один экземпляр можно
+ * использовать из нескольких потоков одновременно. В режимах CBC и CTR каждое сообщение шифруется
+ * с новым случайным вектором инициализации, который записывается первым блоком шифртекста.
+ */
 public class RC5CipherImpl implements Cipher {
 
-  public static final String INVALID_W = "Invalid w. Supported sizes are 16, 32, and 64 bits.";
+  public static final String INVALID_W =
+      "Invalid w. Supported sizes are powers of two from 8 to 256 bits.";
   public static final String INVALID_R = "Invalid r. Should be between 0 and 255.";
   public static final String INVALID_B = "Invalid b. Should be between 0 and 255 bytes.";
-  private int subBlockSizeBits;  // w - Размер подблоков (16, 32, 64)
-  private int numRounds;  // r - Количество раундов
-  private int keyLengthBytes; // b - Длина ключа в байтах
-  //  private int numRoundKeys;  // t - Количество раундовых ключей (связей) 2 * (r + 1)
-  private ExpBigInt P; // P - константа для заполнения массива подключей
-  private ExpBigInt Q; // Q - константа для заполнения массива подключей
-  ExpBigInt[] roundKeys; // S[0.. 2*r + 1] - массив ключей
+  public static final String INVALID_IV =
+      "Invalid iv. Its length should be equal to the block size.";
+  public static final String INVALID_MODE = "Invalid mode. Mode and padding should be specified.";
+  public static final String INVALID_LENGTH =
+      "Invalid length. Should be a multiple of the block size.";
+  public static final String INVALID_PADDING = "Invalid padding.";
+  public static final String INVALID_SYMBOL =
+      "Invalid symbol. Only symbols up to 0xFF are supported.";
+  /**
+   * Количество сообщений пакета, обрабатываемых одной задачей.
+   */
+  public static final int BATCH_SLICE = 32;
+  private static final SecureRandom RANDOM = new SecureRandom();
+  private final int subBlockSizeBits;  // w - Размер подблоков (степень двойки от 8 до 256)
+  private final int numRounds;  // r - Количество раундов
+  private final RC5Engine engine; // Блочный примитив с массивом раундовых ключей S[0.. 2*r + 1]
+  private final RC5Mode mode;
+  private final RC5Padding padding;
 
-  private RC5CipherImpl() {
+  private RC5CipherImpl(RC5ExpandedKey expandedKey, RC5Mode mode, RC5Padding padding) {
+    this.subBlockSizeBits = expandedKey.getWordSize();
+    this.numRounds = expandedKey.getRounds();
+    this.engine = expandedKey.getEngine();
+    this.mode = mode;
+    this.padding = padding;
   }
 
+  /**
+   * Создает шифр в режиме ECB с дополнением нулевыми байтами.
+   */
   public static RC5CipherImpl createInstance(int w, int r, String key) {
-    RC5CipherImpl cipher = new RC5CipherImpl();
-    cipher.validateParameters(w, r, key);
-    cipher.subBlockSizeBits = w;
-    cipher.numRounds = r;
-    cipher.keyLengthBytes = key.length();
-//    cipher.numRoundKeys = 2 * (r + 1);
-    cipher.initializeConstPAndQ();
-    cipher.initializeRoundKeys(key);
-    return cipher;
-  }
-
-  private void validateParameters(int w, int r, String key) {
-    if (w != 16 && w != 32 && w != 64) {
+    return createInstance(w, r, key, RC5Mode.ECB, RC5Padding.ZERO);
+  }
+
+  /**
+   * Создает шифр в заданном режиме.
+   *
+   * @param w       размер подблока в битах: степень двойки от 8 до 256.
+   * @param r       количество раундов.
+   * @param key     секретный ключ; расширенный ключ берется из {@link RC5KeyCache#shared()}.
+   * @param mode    режим работы.
+   * @param padding дополнение последнего блока для ECB и CBC; для CTR не используется.
+   * @return шифр RC5.
+   */
+  public static RC5CipherImpl createInstance(int w, int r, String key, RC5Mode mode,
+      RC5Padding padding) {
+    validateParameters(w, r, key);
+    byte[] secretKey = Arrays.copyOf(key.getBytes(), key.length());
+    return createInstance(RC5KeyCache.shared().get(w, r, secretKey), mode, padding);
+  }
+
+  /**
+   * Создает шифр по готовому расширенному ключу, минуя расширение.
+   *
+   * @param expandedKey расширенный ключ.
+   * @param mode        режим работы.
+   * @param padding     дополнение последнего блока для ECB и CBC; для CTR не используется.
+   * @return шифр RC5.
+   */
+  public static RC5CipherImpl createInstance(RC5ExpandedKey expandedKey, RC5Mode mode,
+      RC5Padding padding) {
+    if (mode == null || padding == null) {
+      throw new IllegalArgumentException(INVALID_MODE);
+    }
+    return new RC5CipherImpl(expandedKey, mode, padding);
+  }
+
+  private static void validateParameters(int w, int r, String key) {
+    if (!RC5ExpandedKey.isSupportedWordSize(w)) {
       throw new IllegalArgumentException(INVALID_W);
     }
     if (r < 0 || r > 255) {
@@ -46,152 +108,237 @@ public class RC5CipherImpl implements Cipher {
     }
   }
 
-  private void initializeConstPAndQ() {
-    switch (subBlockSizeBits) {
-      case 16 -> {
-        P = new ExpBigInt("b7e1", 16, subBlockSizeBits);
-        Q = new ExpBigInt("9e37", 16, subBlockSizeBits);
-      }
-      case 32 -> {
-        P = new ExpBigInt("b7e15163", 16, subBlockSizeBits);
-        Q = new ExpBigInt("9e3779b9", 16, subBlockSizeBits);
-      }
-      case 64 -> {
-        P = new ExpBigInt("b7e151628aed2a6b", 16, subBlockSizeBits);
-        Q = new ExpBigInt("9e3779b97f4a7c15", 16, subBlockSizeBits);
-      }
+  /**
+   * Шифрует или дешифрует данные целиком в выбранном режиме.
+   */
+  private int crypt(ByteBuffer src, ByteBuffer dst, boolean isEncrypt) {
+    CipherSession session = openSession(isEncrypt);
+    if (dst.remaining() < session.getOutputSize(src.remaining())) {
+      throw new BufferOverflowException();
     }
+    return session.update(src, dst) + session.doFinal(dst);
   }
 
-  private void initializeRoundKeys(String key) {
-    byte[] secretKey = key.getBytes();
-    // Рассчитываем количество байтов в слове.
-    int u = subBlockSizeBits / 8;
-    // Рассчитываем количество слов в массиве L.
-    int c = keyLengthBytes % u > 0 ?
-        keyLengthBytes / u + 1 : keyLengthBytes / u;
-    // Инициализируем массив ExpandedBigInteger L нулевыми значениями.
-    ExpBigInt[] L = new ExpBigInt[c];
-    for (int wordIndex = 0; wordIndex < c; wordIndex++) {
-      L[wordIndex] = new ExpBigInt(BigInteger.ZERO, subBlockSizeBits);
+  /**
+   * Открывает сеанс, в котором вектор инициализации передается первым блоком шифртекста; при
+   * шифровании вектор генерируется заново.
+   */
+  private CipherSession openSession(boolean isEncrypt) {
+    if (mode == RC5Mode.ECB) {
+      return openSession(isEncrypt, null);
     }
-    // Проходим по байтам секретного ключа в обратном порядке.
-    for (int i = keyLengthBytes - 1; i >= 0; i--) {
-      // Сдвигаем содержимое массива L на 8 битов влево и добавляем к текущему значению L часть ключа.
-      ExpBigInt elementKey = new ExpBigInt(
-          BigInteger.valueOf(secretKey[i] & 0xFF), subBlockSizeBits
-      );
-      L[i / u] = L[i / u].cycleShiftLeft(8).add(elementKey);
+    if (!isEncrypt) {
+      return RC5IvSession.decrypting(getBlockSize(), iv -> openSession(false, iv));
     }
+    byte[] iv = new byte[getBlockSize()];
+    RANDOM.nextBytes(iv);
+    return RC5IvSession.encrypting(iv, vector -> openSession(true, vector));
+  }
 
-    int numRoundKeys = 2 * (numRounds + 1);
-    // Создаем массив раундовых ключей размером numRoundKeys.
-    roundKeys = new ExpBigInt[numRoundKeys];
-    // Инициализируем первый раундовый ключ значением P.
-    roundKeys[0] = P;
-    // Генерируем остальные раундовые ключи, начиная с первого и идя до numRoundKeys - 1.
-    for (int roundKeyIndex = 1; roundKeyIndex < numRoundKeys; roundKeyIndex++) {
-      // Каждый следующий раундовый ключ вычисляется путем прибавления Q к предыдущему ключу.
-      roundKeys[roundKeyIndex] = roundKeys[roundKeyIndex - 1].add(Q);
+  /**
+   * Открывает сеанс режима с заданным вектором; сам вектор в результат не попадает.
+   */
+  private CipherSession openSession(boolean isEncrypt, byte[] iv) {
+    if (mode == RC5Mode.CTR) {
+      return new RC5CounterSession(new RC5CounterMode(engine, iv));
     }
+    return new RC5CipherSession(engine, isEncrypt, mode, padding, iv);
+  }
 
-    // Инициализируем объекты ExpandedBigInteger A и B нулевыми значениями.
-    ExpBigInt A = new ExpBigInt(BigInteger.ZERO, subBlockSizeBits);
-    ExpBigInt B = new ExpBigInt(BigInteger.ZERO, subBlockSizeBits);
-    // Инициализируем переменные для навигации по массивам roundKeys и L.
-    int i = 0;
-    int j = 0;
-    // Выполняем операции над A и B в цикле.
-    int max = 3 * Math.max(numRoundKeys, c);
-    for (int k = 0; k < max; k++) {
-      // Для A: Вычисляем новое значение и присваиваем его элементу массива roundKeys с индексом roundKeyPointer.
-      A = roundKeys[i] = roundKeys[i].add(A).add(B).cycleShiftLeft(3);
-      // Для B: Вычисляем новое значение и присваиваем его элементу массива L с индексом wordPointer.
-      B = L[j] = L[j].add(A).add(B).cycleShiftLeft(A.add(B).getElement().intValue());
-      // Обновляем индексы roundKeyPointer и wordPointer, чтобы двигаться по массивам roundKeys и L.
-      i = (i + 1) % numRoundKeys;
-      j = (j + 1) % c;
+  private void validateIv(byte[] iv) {
+    if (mode != RC5Mode.ECB && (iv == null || iv.length != getBlockSize())) {
+      throw new IllegalArgumentException(INVALID_IV);
     }
   }
 
+  /**
+   * @return размер блока в байтах (2w / 8), он же длина вектора инициализации.
+   */
+  public int getBlockSize() {
+    return engine.getBlockSize();
+  }
 
-  private String encryptBlock(String block) {
-    String[] parts = getHalves(block);
-
-    ExpBigInt A = new ExpBigInt(parts[0], 2, subBlockSizeBits);
-    ExpBigInt B = new ExpBigInt(parts[1], 2, subBlockSizeBits);
-    if (numRounds > 0) {
-      A = A.add(roundKeys[0]);
-      B = B.add(roundKeys[1]);
-    }
-    for (int i = 1; i < numRounds + 1; i++) {
-      A = A.xor(B).cycleShiftLeft(B).add(roundKeys[2 * i]);
-      B = B.xor(A).cycleShiftLeft(A).add(roundKeys[2 * i + 1]);
+  /**
+   * Каждый символ сообщения занимает один байт.
+   */
+  private static byte[] toBytes(String message) {
+    byte[] bytes = new byte[message.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      char symbol = message.charAt(i);
+      if (symbol > 0xFF) {
+        throw new IllegalArgumentException(INVALID_SYMBOL);
+      }
+      bytes[i] = (byte) symbol;
     }
-    return A.toString(2) + B.toString(2);
+    return bytes;
+  }
+
+  @Override
+  public String encrypt(String message) {
+    return new String(encrypt(toBytes(message)), StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public String decrypt(String message) {
+    return new String(decrypt(toBytes(message)), StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  public int encrypt(ByteBuffer src, ByteBuffer dst) {
+    return crypt(src, dst, true);
+  }
+
+  @Override
+  public int decrypt(ByteBuffer src, ByteBuffer dst) {
+    return crypt(src, dst, false);
+  }
+
+  @Override
+  public CipherSession newEncryptSession() {
+    return openSession(true);
   }
 
-  private String decryptBlock(String block) {
-    String[] parts = getHalves(block);
+  @Override
+  public CipherSession newDecryptSession() {
+    return openSession(false);
+  }
 
-    ExpBigInt A = new ExpBigInt(parts[0], 2, subBlockSizeBits);
-    ExpBigInt B = new ExpBigInt(parts[1], 2, subBlockSizeBits);
+  /**
+   * Открывает сеанс шифрования с вектором, который передается отдельно от шифртекста, например
+   * для совместимости с другими реализациями. Один вектор нельзя использовать для разных сообщений.
+   *
+   * @param iv вектор инициализации длиной в один блок для CBC и CTR; для ECB не используется.
+   * @return новый сеанс шифрования без вектора в начале результата.
+   */
+  public CipherSession newEncryptSession(byte[] iv) {
+    validateIv(iv);
+    return openSession(true, iv);
+  }
 
-    for (int i = numRounds; i > 0; i--) {
-      B = B.subtract(roundKeys[2 * i + 1])
-          .cycleShiftRight(A)
-          .xor(A);
-      A = A.subtract(roundKeys[2 * i])
-          .cycleShiftRight(B)
-          .xor(B);
+  /**
+   * Открывает сеанс дешифрования данных, зашифрованных {@link #newEncryptSession(byte[])}.
+   */
+  public CipherSession newDecryptSession(byte[] iv) {
+    validateIv(iv);
+    return openSession(false, iv);
+  }
+
+  /**
+   * В режимах CBC и CTR результат включает вектор инициализации длиной в один блок.
+   */
+  @Override
+  public int getEncryptedSize(int length) {
+    if (mode == RC5Mode.ECB) {
+      return openSession(true, null).getOutputSize(length);
     }
-    if (numRounds > 0) {
-      B = B.subtract(roundKeys[1]);
-      A = A.subtract(roundKeys[0]);
+    return getBlockSize() + openSession(true, new byte[getBlockSize()]).getOutputSize(length);
+  }
+
+  @Override
+  public int getDecryptedSize(int length) {
+    if (mode == RC5Mode.ECB) {
+      return openSession(false, null).getOutputSize(length);
     }
+    return openSession(false, new byte[getBlockSize()])
+        .getOutputSize(Math.max(0, length - getBlockSize()));
+  }
+
+  /**
+   * Шифрует каждое сообщение пакета так же, как {@link #encrypt(byte[])}, в общем пуле ForkJoin.
+   * В режимах CBC и CTR каждое сообщение получает собственный случайный вектор инициализации в
+   * начале шифртекста, поэтому сообщения пакета не разделяют цепочку или гамму.
+   *
+   * @param messages независимые сообщения.
+   * @return шифртексты в том же порядке.
+   */
+  public List<byte[]> encryptAll(List<byte[]> messages) {
+    return encryptAll(messages, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Шифрует каждое сообщение пакета. Пакет делится на части по {@link #BATCH_SLICE} сообщений,
+   * каждая часть выполняется одной задачей исполнителя; все задачи разделяют этот экземпляр.
+   *
+   * @param messages независимые сообщения.
+   * @param executor исполнитель задач, например пул ForkJoin или пул потоков.
+   * @return шифртексты в том же порядке.
+   */
+  public List<byte[]> encryptAll(List<byte[]> messages, Executor executor) {
+    return transformAll(messages, executor, this::encrypt);
+  }
+
+  public List<byte[]> decryptAll(List<byte[]> ciphertexts) {
+    return decryptAll(ciphertexts, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Дешифрует каждый шифртекст пакета; вектор инициализации читается из начала каждого
+   * шифртекста.
+   *
+   * @param ciphertexts шифртексты.
+   * @param executor    исполнитель задач.
+   * @return открытые тексты в том же порядке.
+   * @see #encryptAll(List, Executor)
+   */
+  public List<byte[]> decryptAll(List<byte[]> ciphertexts, Executor executor) {
+    return transformAll(ciphertexts, executor, this::decrypt);
+  }
 
-    return A.toString(2) + B.toString(2);
-  }
-
-  private static String[] getHalves(String block) {
-    String[] parts = new String[2];
-    int middle = block.length() / 2;
-    parts[0] = block.substring(0, middle);
-    parts[1] = block.substring(middle);
-    return parts;
-  }
-
-  private String crypt(String message, boolean isEncrypt) {
-    // Преобразование строки в битовую строку
-    String binaryMessage = stringToBinary(message);
-      StringBuilder cryptedMessage = new StringBuilder();
-    // Разбиваем битовую строку на блоки размером w
-    for (int i = 0; i < binaryMessage.length(); i += 2 * subBlockSizeBits) {
-      int min = Math.min(i + 2 * subBlockSizeBits, binaryMessage.length());
-      String substring = binaryMessage.substring(i, min);
-      substring = substring + BitConversion.getRepeat(substring, 2 * subBlockSizeBits);
-      String cryptBlock;
-      if (isEncrypt) {
-        cryptBlock = decryptBlock(substring);
-      } else {
-        cryptBlock = encryptBlock(substring);
+  private static List<byte[]> transformAll(List<byte[]> inputs, Executor executor,
+      UnaryOperator<byte[]> operation) {
+    byte[][] outputs = new byte[inputs.size()][];
+    List<CompletableFuture<Void>> tasks = new ArrayList<>();
+    for (int from = 0; from < outputs.length; from += BATCH_SLICE) {
+      int begin = from;
+      int end = Math.min(outputs.length, from + BATCH_SLICE);
+      tasks.add(CompletableFuture.runAsync(() -> {
+        for (int i = begin; i < end; i++) {
+          outputs[i] = operation.apply(inputs.get(i));
+        }
+      }, executor));
+    }
+    try {
+      CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException exception) {
+      if (exception.getCause() instanceof RuntimeException cause) {
+        throw cause;
       }
-      cryptedMessage.append(cryptBlock);
+      throw exception;
     }
-    return BitConversion.binaryToString(cryptedMessage.toString());
+    return List.of(outputs);
   }
 
+  /**
+   * Шифрует файл в режиме счетчика (CTR) независимо от режима экземпляра, отображая исходный и
+   * результирующий файлы в память и обрабатывая участки параллельно в общем пуле ForkJoin. Длина
+   * результата равна длине исходного файла.
+   *
+   * @param source исходный файл.
+   * @param target файл для результата, создается или перезаписывается.
+   * @param iv     начальное значение счетчика длиной в один блок (2w / 8 байтов).
+   * @throws IOException при ошибке ввода-вывода.
+   */
+  public void encryptFile(Path source, Path target, byte[] iv) throws IOException {
+    encryptFile(source, target, iv, ForkJoinPool.commonPool());
+  }
 
-  @Override
-  public String encrypt(String message) {
-    return crypt(message, false);
+  public void encryptFile(Path source, Path target, byte[] iv, ForkJoinPool pool)
+      throws IOException {
+    RC5MappedFileCipher.transform(new RC5CounterMode(engine, iv), source, target, pool);
   }
 
-  @Override
-  public String decrypt(String message) {
-    return crypt(message, true);
+  /**
+   * Дешифрует файл, зашифрованный {@link #encryptFile(Path, Path, byte[])}. В режиме счетчика
+   * дешифрование совпадает с шифрованием.
+   */
+  public void decryptFile(Path source, Path target, byte[] iv) throws IOException {
+    encryptFile(source, target, iv);
   }
 
+  public void decryptFile(Path source, Path target, byte[] iv, ForkJoinPool pool)
+      throws IOException {
+    encryptFile(source, target, iv, pool);
+  }
 
   public static void main(String[] args) {
     String message = "Hi, I am Alex)) I've been doing this job for eight hours, have mercy.";
@@ -201,6 +348,11 @@ public class RC5CipherImpl implements Cipher {
     System.out.println(encryptMessage);
     String decryptMessage = cipher.decrypt(encryptMessage);
     System.out.println(decryptMessage);
+
+    Cipher cbc = RC5CipherImpl.createInstance(32, 12, key, RC5Mode.CBC, RC5Padding.PKCS7);
+    System.out.println(cbc.decrypt(cbc.encrypt(message)));
+    boolean fresh = !cbc.encrypt(message).equals(cbc.encrypt(message));
+    System.out.println("Fresh IV per message: " + fresh);
   }
 
 }
@@ -0,0 +1,154 @@
+package alex.serov.task3;
+
+import alex.serov.CipherSession;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Сеанс RC5 в режимах ECB и CBC. Незавершенный блок и предыдущий блок шифртекста переносятся между
+ * порциями, последний блок дополняется при завершении сеанса. При дешифровании с дополнением
+ * PKCS#7 последний полный блок придерживается до doFinal, чтобы снять с него дополнение.
+ */
+final class RC5CipherSession implements CipherSession {
+
+  private final RC5Engine engine;
+  private final boolean isEncrypt;
+  private final RC5Padding padding;
+  private final byte[] block;
+  private int blockLength;
+  // Предыдущий блок шифртекста для CBC; null в режиме ECB.
+  private byte[] chain;
+  private byte[] saved;
+
+  RC5CipherSession(RC5Engine engine, boolean isEncrypt, RC5Mode mode, RC5Padding padding,
+      byte[] iv) {
+    this.engine = engine;
+    this.isEncrypt = isEncrypt;
+    this.padding = padding;
+    this.block = new byte[engine.getBlockSize()];
+    if (mode == RC5Mode.CBC) {
+      this.chain = iv.clone();
+      this.saved = new byte[block.length];
+    }
+  }
+
+  @Override
+  public int update(ByteBuffer src, ByteBuffer dst) {
+    int blockSize = block.length;
+    int blocks = countBlocks(blockLength + src.remaining());
+    int length = blocks * blockSize;
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    if (blocks > 0 && blockLength > 0) {
+      src.get(block, blockLength, blockSize - blockLength);
+      cryptBlock(block, 0, block, 0);
+      dst.put(block);
+      blockLength = 0;
+      blocks--;
+    }
+    int fullLength = blocks * blockSize;
+    if (src.hasArray() && dst.hasArray()) {
+      // Полные блоки обрабатываются прямо в массивах буферов.
+      byte[] in = src.array();
+      byte[] out = dst.array();
+      int inOffset = src.arrayOffset() + src.position();
+      int outOffset = dst.arrayOffset() + dst.position();
+      for (int i = 0; i < fullLength; i += blockSize) {
+        cryptBlock(in, inOffset + i, out, outOffset + i);
+      }
+      src.position(src.position() + fullLength);
+      dst.position(dst.position() + fullLength);
+    } else {
+      for (int i = 0; i < fullLength; i += blockSize) {
+        src.get(block);
+        cryptBlock(block, 0, block, 0);
+        dst.put(block);
+      }
+    }
+    int rest = src.remaining();
+    src.get(block, blockLength, rest);
+    blockLength += rest;
+    return length;
+  }
+
+  @Override
+  public int doFinal(ByteBuffer dst) {
+    int blockSize = block.length;
+    if (padding == RC5Padding.ZERO && blockLength == 0) {
+      return 0;
+    }
+    if (dst.remaining() < blockSize) {
+      throw new BufferOverflowException();
+    }
+    if (isEncrypt || padding == RC5Padding.ZERO) {
+      byte fill = padding == RC5Padding.PKCS7 ? (byte) (blockSize - blockLength) : 0;
+      Arrays.fill(block, blockLength, blockSize, fill);
+      cryptBlock(block, 0, block, 0);
+      dst.put(block);
+      blockLength = 0;
+      return blockSize;
+    }
+    if (blockLength != blockSize) {
+      throw new IllegalArgumentException(RC5CipherImpl.INVALID_LENGTH);
+    }
+    cryptBlock(block, 0, block, 0);
+    int pad = block[blockSize - 1] & 0xFF;
+    boolean valid = pad >= 1 && pad <= blockSize;
+    for (int i = blockSize - pad; valid && i < blockSize; i++) {
+      valid = block[i] == (byte) pad;
+    }
+    if (!valid) {
+      throw new IllegalArgumentException(RC5CipherImpl.INVALID_PADDING);
+    }
+    dst.put(block, 0, blockSize - pad);
+    blockLength = 0;
+    return blockSize - pad;
+  }
+
+  @Override
+  public int getOutputSize(int length) {
+    int blockSize = block.length;
+    int total = blockLength + length;
+    if (isEncrypt && padding == RC5Padding.PKCS7) {
+      return (total / blockSize + 1) * blockSize;
+    }
+    return (total + blockSize - 1) / blockSize * blockSize;
+  }
+
+  /**
+   * @return количество блоков, которые можно обработать сразу при available накопленных байтах.
+   */
+  private int countBlocks(int available) {
+    if (!isEncrypt && padding == RC5Padding.PKCS7) {
+      return available == 0 ? 0 : (available - 1) / block.length;
+    }
+    return available / block.length;
+  }
+
+  private void cryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    if (chain == null) {
+      if (isEncrypt) {
+        engine.encryptBlock(in, inOffset, out, outOffset);
+      } else {
+        engine.decryptBlock(in, inOffset, out, outOffset);
+      }
+    } else if (isEncrypt) {
+      for (int i = 0; i < chain.length; i++) {
+        chain[i] ^= in[inOffset + i];
+      }
+      engine.encryptBlock(chain, 0, chain, 0);
+      System.arraycopy(chain, 0, out, outOffset, chain.length);
+    } else {
+      System.arraycopy(in, inOffset, saved, 0, saved.length);
+      engine.decryptBlock(in, inOffset, out, outOffset);
+      for (int i = 0; i < chain.length; i++) {
+        out[outOffset + i] ^= chain[i];
+      }
+      byte[] previous = chain;
+      chain = saved;
+      saved = previous;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package alex.serov.task3;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Режим счетчика (CTR) над блочным примитивом RC5. Блок гаммы с номером i равен зашифрованному
+ * значению iv + i, где сложение выполняется над блоком как над big-endian числом. Блоки гаммы
+ * независимы, поэтому любой участок данных обрабатывается отдельно от остальных, а шифрование и
+ * дешифрование совпадают.
+ */
+final class RC5CounterMode {
+
+  private final RC5Engine engine;
+  private final byte[] iv;
+
+  RC5CounterMode(RC5Engine engine, byte[] iv) {
+    if (iv == null || iv.length != engine.getBlockSize()) {
+      throw new IllegalArgumentException(RC5CipherImpl.INVALID_IV);
+    }
+    this.engine = engine;
+    this.iv = iv.clone();
+  }
+
+  int getBlockSize() {
+    return engine.getBlockSize();
+  }
+
+  /**
+   * Накладывает гамму на length байтов src, начиная с блока firstBlock, и записывает результат в
+   * dst. Используются только абсолютные операции, поэтому позиции буферов не меняются. Порядок
+   * байтов буферов не влияет на результат: слова читаются и записываются в порядке big-endian.
+   *
+   * @param src        исходные данные.
+   * @param srcIndex   индекс первого байта в src.
+   * @param dst        буфер для результата.
+   * @param dstIndex   индекс первого байта в dst.
+   * @param length     количество байтов.
+   * @param firstBlock номер первого блока гаммы.
+   */
+  void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length,
+      long firstBlock) {
+    int blockSize = engine.getBlockSize();
+    src = bigEndian(src);
+    dst = bigEndian(dst);
+    byte[] counter = iv.clone();
+    add(counter, firstBlock);
+    byte[] keystream = new byte[blockSize];
+    for (int offset = 0; offset < length; offset += blockSize) {
+      engine.encryptBlock(counter, 0, keystream, 0);
+      int s = srcIndex + offset;
+      int d = dstIndex + offset;
+      if (length - offset >= blockSize && blockSize % 8 == 0) {
+        for (int j = 0; j < blockSize; j += 8) {
+          dst.putLong(d + j, src.getLong(s + j) ^ RC5Engine.getLong(keystream, j));
+        }
+      } else if (length - offset >= blockSize && blockSize == 4) {
+        dst.putInt(d, src.getInt(s) ^ RC5Engine.getInt(keystream, 0));
+      } else {
+        for (int j = 0; j < Math.min(blockSize, length - offset); j++) {
+          dst.put(d + j, (byte) (src.get(s + j) ^ keystream[j]));
+        }
+      }
+      increment(counter);
+    }
+  }
+
+  /**
+   * @return буфер с порядком big-endian, разделяющий содержимое и индексы с buffer.
+   */
+  private static ByteBuffer bigEndian(ByteBuffer buffer) {
+    return buffer.order() == ByteOrder.BIG_ENDIAN ? buffer
+        : buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+  }
+
+  /**
+   * Вычисляет блок гаммы с номером block.
+   *
+   * @param block     номер блока.
+   * @param keystream массив длиной в один блок для результата.
+   */
+  void keystream(long block, byte[] keystream) {
+    byte[] counter = iv.clone();
+    add(counter, block);
+    engine.encryptBlock(counter, 0, keystream, 0);
+  }
+
+  /**
+   * Прибавляет к big-endian счетчику неотрицательное значение.
+   */
+  static void add(byte[] counter, long value) {
+    int carry = 0;
+    for (int i = counter.length - 1; i >= 0 && (value != 0 || carry != 0); i--) {
+      int sum = (counter[i] & 0xFF) + (int) (value & 0xFF) + carry;
+      counter[i] = (byte) sum;
+      carry = sum >>> 8;
+      value >>>= 8;
+    }
+  }
+
+  static void increment(byte[] counter) {
+    for (int i = counter.length - 1; i >= 0; i--) {
+      if (++counter[i] != 0) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package alex.serov.task3;
+
+import alex.serov.CipherSession;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Сеанс RC5 в режиме счетчика. Номер текущего блока гаммы и использованная часть этого блока
+ * переносятся между порциями, поэтому длина результата всегда равна длине данных.
+ */
+final class RC5CounterSession implements CipherSession {
+
+  private final RC5CounterMode mode;
+  private final byte[] keystream;
+  private long block;
+  // Количество использованных байтов блока гаммы block; 0 - блок еще не вычислен.
+  private int offset;
+
+  RC5CounterSession(RC5CounterMode mode) {
+    this.mode = mode;
+    this.keystream = new byte[mode.getBlockSize()];
+  }
+
+  @Override
+  public int update(ByteBuffer src, ByteBuffer dst) {
+    int length = src.remaining();
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    int blockSize = keystream.length;
+    if (offset > 0) {
+      while (offset < blockSize && src.hasRemaining()) {
+        dst.put((byte) (src.get() ^ keystream[offset++]));
+      }
+      if (offset == blockSize) {
+        offset = 0;
+        block++;
+      }
+    }
+    int fullLength = src.remaining() / blockSize * blockSize;
+    mode.apply(src, src.position(), dst, dst.position(), fullLength, block);
+    src.position(src.position() + fullLength);
+    dst.position(dst.position() + fullLength);
+    block += fullLength / blockSize;
+    if (src.hasRemaining()) {
+      mode.keystream(block, keystream);
+      while (src.hasRemaining()) {
+        dst.put((byte) (src.get() ^ keystream[offset++]));
+      }
+    }
+    return length;
+  }
+
+  @Override
+  public int doFinal(ByteBuffer dst) {
+    return 0;
+  }
+
+  @Override
+  public int getOutputSize(int length) {
+    return length;
+  }
+}
@@ -0,0 +1,90 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+
+/**
+ * Блочный примитив RC5, работающий с машинными словами фиксированной ширины вместо битовых строк.
+ * Экземпляр хранит только массив раундовых ключей, не изменяется после создания и не выделяет
+ * память при обработке блоков, поэтому его можно использовать из нескольких потоков.
+ * Блок из 2w бит читается как два слова A и B в порядке big-endian через {@link BitBuffer}, что
+ * совпадает с прежним представлением через {@link alex.serov.BitConversion}.
+ */
+abstract class RC5Engine {
+
+  final int rounds;
+
+  RC5Engine(int rounds) {
+    this.rounds = rounds;
+  }
+
+  /**
+   * Создает движок для заданной ширины слова.
+   *
+   * @param w         размер подблока в битах, не больше 64.
+   * @param r         количество раундов.
+   * @param roundKeys раундовые ключи S[0.. 2*r + 1] в младших w битах long.
+   * @return движок RC5.
+   */
+  static RC5Engine create(int w, int r, long[] roundKeys) {
+    return switch (w) {
+      case 8 -> new RC5Engine8(r, roundKeys);
+      case 16 -> new RC5Engine16(r, roundKeys);
+      case 32 -> new RC5Engine32(r, roundKeys);
+      case 64 -> new RC5Engine64(r, roundKeys);
+      default -> {
+        Word[] words = new Word[roundKeys.length];
+        for (int i = 0; i < words.length; i++) {
+          words[i] = Word.create(w).set(BigInteger.valueOf(roundKeys[i]));
+        }
+        yield new RC5WordEngine(r, words);
+      }
+    };
+  }
+
+  /**
+   * Создает движок по раундовым ключам в виде слов. Для 8, 16, 32 и 64 бит выбирается
+   * специализированный движок, для остальных ширин - {@link RC5WordEngine}.
+   *
+   * @param r         количество раундов.
+   * @param roundKeys раундовые ключи S[0.. 2*r + 1] одной ширины.
+   * @return движок RC5.
+   */
+  static RC5Engine create(int r, Word[] roundKeys) {
+    int w = roundKeys[0].getWidth();
+    if (w != 8 && w != 16 && w != 32 && w != 64) {
+      return new RC5WordEngine(r, roundKeys);
+    }
+    long[] keys = new long[roundKeys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = roundKeys[i].toBigInteger().longValue();
+    }
+    return create(w, r, keys);
+  }
+
+  /**
+   * @return размер блока в байтах (2w / 8).
+   */
+  abstract int getBlockSize();
+
+  abstract void encryptBlock(byte[] in, int inOffset, byte[] out, int outOffset);
+
+  abstract void decryptBlock(byte[] in, int inOffset, byte[] out, int outOffset);
+
+  static int getInt(byte[] bytes, int offset) {
+    return BitBuffer.getInt(bytes, offset, ByteOrder.BIG_ENDIAN);
+  }
+
+  static void putInt(byte[] bytes, int offset, int value) {
+    BitBuffer.putInt(bytes, offset, value, ByteOrder.BIG_ENDIAN);
+  }
+
+  static long getLong(byte[] bytes, int offset) {
+    return BitBuffer.getLong(bytes, offset, ByteOrder.BIG_ENDIAN);
+  }
+
+  static void putLong(byte[] bytes, int offset, long value) {
+    BitBuffer.putLong(bytes, offset, value, ByteOrder.BIG_ENDIAN);
+  }
+}
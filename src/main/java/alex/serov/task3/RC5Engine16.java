@@ -0,0 +1,65 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+
+/**
+ * Движок RC5 с 16-битными подблоками. Слова хранятся в младших битах int.
+ */
+final class RC5Engine16 extends RC5Engine {
+
+  private static final int MASK = 0xFFFF;
+  private final int[] S;
+
+  RC5Engine16(int rounds, long[] roundKeys) {
+    super(rounds);
+    S = new int[roundKeys.length];
+    for (int i = 0; i < roundKeys.length; i++) {
+      S[i] = (int) roundKeys[i];
+    }
+  }
+
+  private static int rotl(int value, int distance) {
+    return BitBuffer.rotateLeft(value, distance, 16);
+  }
+
+  private static int rotr(int value, int distance) {
+    return BitBuffer.rotateRight(value, distance, 16);
+  }
+
+  @Override
+  int getBlockSize() {
+    return 4;
+  }
+
+  @Override
+  void encryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    int block = getInt(in, inOffset);
+    int A = block >>> 16;
+    int B = block & MASK;
+    if (rounds > 0) {
+      A = (A + S[0]) & MASK;
+      B = (B + S[1]) & MASK;
+    }
+    for (int i = 1; i <= rounds; i++) {
+      A = (rotl(A ^ B, B) + S[2 * i]) & MASK;
+      B = (rotl(B ^ A, A) + S[2 * i + 1]) & MASK;
+    }
+    putInt(out, outOffset, A << 16 | B);
+  }
+
+  @Override
+  void decryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    int block = getInt(in, inOffset);
+    int A = block >>> 16;
+    int B = block & MASK;
+    for (int i = rounds; i > 0; i--) {
+      B = rotr((B - S[2 * i + 1]) & MASK, A) ^ A;
+      A = rotr((A - S[2 * i]) & MASK, B) ^ B;
+    }
+    if (rounds > 0) {
+      B = (B - S[1]) & MASK;
+      A = (A - S[0]) & MASK;
+    }
+    putInt(out, outOffset, A << 16 | B);
+  }
+}
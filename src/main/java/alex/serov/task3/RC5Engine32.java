@@ -0,0 +1,54 @@
+package alex.serov.task3;
+
+/**
+ * Движок RC5 с 32-битными подблоками на основе int и {@link Integer#rotateLeft(int, int)}.
+ */
+final class RC5Engine32 extends RC5Engine {
+
+  private final int[] S;
+
+  RC5Engine32(int rounds, long[] roundKeys) {
+    super(rounds);
+    S = new int[roundKeys.length];
+    for (int i = 0; i < roundKeys.length; i++) {
+      S[i] = (int) roundKeys[i];
+    }
+  }
+
+  @Override
+  int getBlockSize() {
+    return 8;
+  }
+
+  @Override
+  void encryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    int A = getInt(in, inOffset);
+    int B = getInt(in, inOffset + 4);
+    if (rounds > 0) {
+      A += S[0];
+      B += S[1];
+    }
+    for (int i = 1; i <= rounds; i++) {
+      A = Integer.rotateLeft(A ^ B, B) + S[2 * i];
+      B = Integer.rotateLeft(B ^ A, A) + S[2 * i + 1];
+    }
+    putInt(out, outOffset, A);
+    putInt(out, outOffset + 4, B);
+  }
+
+  @Override
+  void decryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    int A = getInt(in, inOffset);
+    int B = getInt(in, inOffset + 4);
+    for (int i = rounds; i > 0; i--) {
+      B = Integer.rotateRight(B - S[2 * i + 1], A) ^ A;
+      A = Integer.rotateRight(A - S[2 * i], B) ^ B;
+    }
+    if (rounds > 0) {
+      B -= S[1];
+      A -= S[0];
+    }
+    putInt(out, outOffset, A);
+    putInt(out, outOffset + 4, B);
+  }
+}
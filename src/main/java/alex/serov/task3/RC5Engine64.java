@@ -0,0 +1,51 @@
+package alex.serov.task3;
+
+/**
+ * Движок RC5 с 64-битными подблоками на основе long и {@link Long#rotateLeft(long, int)}.
+ */
+final class RC5Engine64 extends RC5Engine {
+
+  private final long[] S;
+
+  RC5Engine64(int rounds, long[] roundKeys) {
+    super(rounds);
+    S = roundKeys.clone();
+  }
+
+  @Override
+  int getBlockSize() {
+    return 16;
+  }
+
+  @Override
+  void encryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    long A = getLong(in, inOffset);
+    long B = getLong(in, inOffset + 8);
+    if (rounds > 0) {
+      A += S[0];
+      B += S[1];
+    }
+    for (int i = 1; i <= rounds; i++) {
+      A = Long.rotateLeft(A ^ B, (int) B) + S[2 * i];
+      B = Long.rotateLeft(B ^ A, (int) A) + S[2 * i + 1];
+    }
+    putLong(out, outOffset, A);
+    putLong(out, outOffset + 8, B);
+  }
+
+  @Override
+  void decryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    long A = getLong(in, inOffset);
+    long B = getLong(in, inOffset + 8);
+    for (int i = rounds; i > 0; i--) {
+      B = Long.rotateRight(B - S[2 * i + 1], (int) A) ^ A;
+      A = Long.rotateRight(A - S[2 * i], (int) B) ^ B;
+    }
+    if (rounds > 0) {
+      B -= S[1];
+      A -= S[0];
+    }
+    putLong(out, outOffset, A);
+    putLong(out, outOffset + 8, B);
+  }
+}
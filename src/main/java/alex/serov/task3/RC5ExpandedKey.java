@@ -0,0 +1,195 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Расширенный ключ RC5: массив раундовых ключей S, вычисленный один раз для параметров (w, r, key).
+ * Объект неизменяем и может использоваться несколькими шифрами и потоками одновременно.
+ */
+public final class RC5ExpandedKey {
+
+  static final int MIN_WORD_SIZE = 8;
+  static final int MAX_WORD_SIZE = 256;
+
+  // Магические константы {P, Q} по ширине слова, вычисляются при первом обращении.
+  private static final Map<Integer, BigInteger[]> MAGIC_CONSTANTS = new ConcurrentHashMap<>();
+
+  private final int wordSize;
+  private final int rounds;
+  private final RC5Engine engine;
+
+  private RC5ExpandedKey(int wordSize, int rounds, RC5Engine engine) {
+    this.wordSize = wordSize;
+    this.rounds = rounds;
+    this.engine = engine;
+  }
+
+  /**
+   * Выполняет расширение ключа RC5. До 64 бит слова хранятся в long, более широкие - в
+   * {@link Word}.
+   *
+   * @param w   размер подблока в битах: степень двойки от 8 до 256.
+   * @param r   количество раундов.
+   * @param key байты секретного ключа (от 1 до 255).
+   * @return расширенный ключ.
+   */
+  public static RC5ExpandedKey expand(int w, int r, byte[] key) {
+    if (!isSupportedWordSize(w)) {
+      throw new IllegalArgumentException(RC5CipherImpl.INVALID_W);
+    }
+    if (r < 0 || r > 255) {
+      throw new IllegalArgumentException(RC5CipherImpl.INVALID_R);
+    }
+    if (key == null || key.length == 0 || key.length > 255) {
+      throw new IllegalArgumentException(RC5CipherImpl.INVALID_B);
+    }
+    RC5Engine engine = w <= Long.SIZE
+        ? RC5Engine.create(w, r, expandKey(w, r, key))
+        : RC5Engine.create(r, expandWideKey(w, r, key));
+    return new RC5ExpandedKey(w, r, engine);
+  }
+
+  /**
+   * @return true, если w - степень двойки от 8 до 256.
+   */
+  public static boolean isSupportedWordSize(int w) {
+    return w >= MIN_WORD_SIZE && w <= MAX_WORD_SIZE && Integer.bitCount(w) == 1;
+  }
+
+  public int getWordSize() {
+    return wordSize;
+  }
+
+  public int getRounds() {
+    return rounds;
+  }
+
+  RC5Engine getEngine() {
+    return engine;
+  }
+
+  /**
+   * Расширение ключа для w до 64 бит. Значения слов хранятся в младших w битах long.
+   *
+   * @return массив раундовых ключей S[0.. 2*r + 1].
+   */
+  private static long[] expandKey(int w, int r, byte[] key) {
+    long mask = w == 64 ? -1L : (1L << w) - 1;
+    BigInteger[] constants = getMagicConstants(w);
+    long p = constants[0].longValue();
+    long q = constants[1].longValue();
+    // Количество байтов в слове и количество слов в массиве L.
+    int u = w / 8;
+    int c = (key.length + u - 1) / u;
+    long[] L = new long[c];
+    // В слово попадает не более u байтов, поэтому циклический сдвиг на 8 здесь равен обычному.
+    for (int i = key.length - 1; i >= 0; i--) {
+      L[i / u] = ((L[i / u] << 8) + (key[i] & 0xFF)) & mask;
+    }
+
+    int numRoundKeys = 2 * (r + 1);
+    long[] S = new long[numRoundKeys];
+    S[0] = p;
+    for (int i = 1; i < numRoundKeys; i++) {
+      S[i] = (S[i - 1] + q) & mask;
+    }
+
+    long A = 0;
+    long B = 0;
+    int i = 0;
+    int j = 0;
+    int max = 3 * Math.max(numRoundKeys, c);
+    for (int k = 0; k < max; k++) {
+      A = S[i] = BitBuffer.rotateLeft((S[i] + A + B) & mask, 3, w);
+      B = L[j] = BitBuffer.rotateLeft((L[j] + A + B) & mask, (int) (A + B), w);
+      i = (i + 1) % numRoundKeys;
+      j = (j + 1) % c;
+    }
+    return S;
+  }
+
+  /**
+   * Расширение ключа на словах произвольной ширины; повторяет {@link #expandKey(int, int, byte[])}.
+   *
+   * @return массив раундовых ключей S[0.. 2*r + 1].
+   */
+  private static Word[] expandWideKey(int w, int r, byte[] key) {
+    BigInteger[] constants = getMagicConstants(w);
+    int u = w / 8;
+    int c = (key.length + u - 1) / u;
+    Word[] L = new Word[c];
+    byte[] bytes = new byte[u];
+    for (int j = 0; j < c; j++) {
+      // Байты ключа укладываются в слово в порядке little-endian.
+      Arrays.fill(bytes, (byte) 0);
+      for (int k = 0; k < u && j * u + k < key.length; k++) {
+        bytes[u - 1 - k] = key[j * u + k];
+      }
+      L[j] = Word.create(w).load(bytes, 0);
+    }
+
+    int numRoundKeys = 2 * (r + 1);
+    Word[] S = new Word[numRoundKeys];
+    Word q = Word.create(w).set(constants[1]);
+    S[0] = Word.create(w).set(constants[0]);
+    for (int i = 1; i < numRoundKeys; i++) {
+      S[i] = S[i - 1].copy().add(q);
+    }
+
+    Word A = Word.create(w);
+    Word B = Word.create(w);
+    Word sum = Word.create(w);
+    int i = 0;
+    int j = 0;
+    int max = 3 * Math.max(numRoundKeys, c);
+    for (int k = 0; k < max; k++) {
+      A.set(S[i].add(A).add(B).rotateLeft(3));
+      sum.set(A).add(B);
+      B.set(L[j].add(sum).rotateLeft(sum));
+      i = (i + 1) % numRoundKeys;
+      j = (j + 1) % c;
+    }
+    return S;
+  }
+
+  /**
+   * Возвращает константы P = Odd((e - 2) * 2^w) и Q = Odd((phi - 1) * 2^w), где Odd - ближайшее
+   * нечетное целое, как они определены в спецификации RC5.
+   *
+   * @return массив {P, Q}.
+   */
+  static BigInteger[] getMagicConstants(int w) {
+    return MAGIC_CONSTANTS.computeIfAbsent(w, RC5ExpandedKey::computeMagicConstants);
+  }
+
+  private static BigInteger[] computeMagicConstants(int w) {
+    // Десятичных знаков с запасом больше, чем w * log10(2).
+    MathContext context = new MathContext(w / 3 + 20);
+    BigDecimal e = BigDecimal.ONE;
+    BigDecimal term = BigDecimal.ONE;
+    BigDecimal epsilon = BigDecimal.ONE.movePointLeft(context.getPrecision());
+    for (int k = 1; term.compareTo(epsilon) > 0; k++) {
+      term = term.divide(BigDecimal.valueOf(k), context);
+      e = e.add(term, context);
+    }
+    BigDecimal two = BigDecimal.valueOf(2);
+    BigDecimal phi = BigDecimal.valueOf(5).sqrt(context).add(BigDecimal.ONE).divide(two, context);
+    BigDecimal scale = new BigDecimal(BigInteger.ONE.shiftLeft(w));
+    return new BigInteger[]{
+        odd(e.subtract(two).multiply(scale, context)),
+        odd(phi.subtract(BigDecimal.ONE).multiply(scale, context))
+    };
+  }
+
+  private static BigInteger odd(BigDecimal value) {
+    BigInteger floor = value.setScale(0, RoundingMode.FLOOR).toBigIntegerExact();
+    return floor.testBit(0) ? floor : floor.add(BigInteger.ONE);
+  }
+}
@@ -0,0 +1,98 @@
+package alex.serov.task3;
+
+import alex.serov.CipherSession;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+
+/**
+ * Сеанс RC5 в режимах CBC и CTR, передающий вектор инициализации первым блоком шифртекста. При
+ * шифровании вектор записывается перед результатом сеанса режима. При дешифровании первые байты
+ * накапливаются как вектор, и только затем открывается сеанс режима.
+ */
+final class RC5IvSession implements CipherSession {
+
+  private final boolean isEncrypt;
+  private final byte[] iv;
+  // Количество записанных (при шифровании) или прочитанных (при дешифровании) байтов вектора.
+  private int ivLength;
+  private final Function<byte[], CipherSession> factory;
+  private CipherSession session;
+
+  private RC5IvSession(boolean isEncrypt, byte[] iv, Function<byte[], CipherSession> factory) {
+    this.isEncrypt = isEncrypt;
+    this.iv = iv;
+    this.factory = factory;
+    this.session = isEncrypt ? factory.apply(iv) : null;
+  }
+
+  /**
+   * @param iv      вектор инициализации, который будет записан перед шифртекстом.
+   * @param factory открывает сеанс шифрования режима по вектору.
+   */
+  static RC5IvSession encrypting(byte[] iv, Function<byte[], CipherSession> factory) {
+    return new RC5IvSession(true, iv, factory);
+  }
+
+  /**
+   * @param blockSize размер блока, он же длина вектора в начале шифртекста.
+   * @param factory   открывает сеанс дешифрования режима по прочитанному вектору.
+   */
+  static RC5IvSession decrypting(int blockSize, Function<byte[], CipherSession> factory) {
+    return new RC5IvSession(false, new byte[blockSize], factory);
+  }
+
+  @Override
+  public int update(ByteBuffer src, ByteBuffer dst) {
+    if (isEncrypt) {
+      if (dst.remaining() < getOutputSize(src.remaining())) {
+        throw new BufferOverflowException();
+      }
+      return putIv(dst) + session.update(src, dst);
+    }
+    if (session == null) {
+      int length = Math.min(iv.length - ivLength, src.remaining());
+      src.get(iv, ivLength, length);
+      ivLength += length;
+      if (ivLength < iv.length) {
+        return 0;
+      }
+      session = factory.apply(iv);
+    }
+    return session.update(src, dst);
+  }
+
+  @Override
+  public int doFinal(ByteBuffer dst) {
+    if (isEncrypt) {
+      if (dst.remaining() < getOutputSize(0)) {
+        throw new BufferOverflowException();
+      }
+      return putIv(dst) + session.doFinal(dst);
+    }
+    if (session == null) {
+      throw new IllegalArgumentException(RC5CipherImpl.INVALID_LENGTH);
+    }
+    return session.doFinal(dst);
+  }
+
+  @Override
+  public int getOutputSize(int length) {
+    if (isEncrypt) {
+      return iv.length - ivLength + session.getOutputSize(length);
+    }
+    if (session == null) {
+      // Размер результата сеанса режима не зависит от вектора, пока данные не поступали.
+      int rest = Math.max(0, length - (iv.length - ivLength));
+      return factory.apply(new byte[iv.length]).getOutputSize(rest);
+    }
+    return session.getOutputSize(length);
+  }
+
+  private int putIv(ByteBuffer dst) {
+    int length = iv.length - ivLength;
+    dst.put(iv, ivLength, length);
+    ivLength = iv.length;
+    return length;
+  }
+}
@@ -0,0 +1,115 @@
+package alex.serov.task3;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ограниченный LRU-кэш расширенных ключей RC5. Записи идентифицируются параметрами w, r и
+ * SHA-256 от байтов ключа, так что сами ключи в кэше не хранятся. Кэш потокобезопасен;
+ * расширение ключа при промахе выполняется вне блокировки.
+ */
+public final class RC5KeyCache {
+
+  public static final int DEFAULT_CAPACITY = 1024;
+  private static final RC5KeyCache SHARED = new RC5KeyCache(DEFAULT_CAPACITY);
+
+  private final Map<Entry, RC5ExpandedKey> entries;
+
+  public RC5KeyCache(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity should be positive.");
+    }
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Entry, RC5ExpandedKey> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * @return общий кэш, которым пользуется {@link RC5CipherImpl#createInstance(int, int, String)}.
+   */
+  public static RC5KeyCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * Возвращает расширенный ключ из кэша или вычисляет и кэширует его.
+   *
+   * @param w   размер подблока в битах.
+   * @param r   количество раундов.
+   * @param key байты секретного ключа.
+   * @return расширенный ключ.
+   */
+  public RC5ExpandedKey get(int w, int r, byte[] key) {
+    Entry entry = new Entry(w, r, digest(key));
+    RC5ExpandedKey expandedKey;
+    synchronized (entries) {
+      expandedKey = entries.get(entry);
+    }
+    if (expandedKey != null) {
+      return expandedKey;
+    }
+    expandedKey = RC5ExpandedKey.expand(w, r, key);
+    synchronized (entries) {
+      RC5ExpandedKey existing = entries.putIfAbsent(entry, expandedKey);
+      return existing != null ? existing : expandedKey;
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  private static byte[] digest(byte[] key) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(key);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Entry {
+
+    private final int wordSize;
+    private final int rounds;
+    private final byte[] digest;
+    private final int hash;
+
+    Entry(int wordSize, int rounds, byte[] digest) {
+      this.wordSize = wordSize;
+      this.rounds = rounds;
+      this.digest = digest;
+      this.hash = 31 * (31 * wordSize + rounds) + Arrays.hashCode(digest);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Entry other)) {
+        return false;
+      }
+      return wordSize == other.wordSize && rounds == other.rounds
+          && Arrays.equals(digest, other.digest);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package alex.serov.task3;
+
+/**
+ * Режим работы блочного шифра RC5.
+ */
+public enum RC5Mode {
+  /**
+   * Блоки шифруются независимо; одинаковые блоки дают одинаковый шифртекст.
+   */
+  ECB,
+  /**
+   * Каждый блок перед шифрованием складывается по модулю 2 с предыдущим блоком шифртекста,
+   * первый блок - с iv.
+   */
+  CBC,
+  /**
+   * Данные складываются с гаммой из зашифрованных значений счетчика iv + i. Дополнение не нужно,
+   * блоки независимы и обрабатываются параллельно.
+   */
+  CTR
+}
@@ -0,0 +1,17 @@
+package alex.serov.task3;
+
+/**
+ * Способ дополнения последнего блока в режимах ECB и CBC. Режим CTR дополнение не использует.
+ */
+public enum RC5Padding {
+  /**
+   * Последний неполный блок дополняется нулевыми байтами, которые остаются в результате
+   * дешифрования.
+   */
+  ZERO,
+  /**
+   * Дополнение PKCS#7: добавляется от 1 до blockSize байтов, каждый из которых равен их количеству.
+   * При дешифровании дополнение проверяется и удаляется.
+   */
+  PKCS7
+}
@@ -0,0 +1,62 @@
+package alex.serov.task3;
+
+/**
+ * Движок RC5 для произвольной ширины слова на основе изменяемых {@link Word}. Регистры A и B
+ * создаются один раз на поток, поэтому обработка блока не выделяет память сверх того, что
+ * требует сама реализация слова.
+ */
+final class RC5WordEngine extends RC5Engine {
+
+  private final Word[] S;
+  private final int wordSize;
+  private final ThreadLocal<Word[]> registers;
+
+  RC5WordEngine(int rounds, Word[] roundKeys) {
+    super(rounds);
+    S = new Word[roundKeys.length];
+    for (int i = 0; i < roundKeys.length; i++) {
+      S[i] = roundKeys[i].copy();
+    }
+    wordSize = S[0].getByteSize();
+    registers = ThreadLocal.withInitial(() -> new Word[]{S[0].copy(), S[0].copy()});
+  }
+
+  @Override
+  int getBlockSize() {
+    return 2 * wordSize;
+  }
+
+  @Override
+  void encryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    Word[] words = registers.get();
+    Word A = words[0].load(in, inOffset);
+    Word B = words[1].load(in, inOffset + wordSize);
+    if (rounds > 0) {
+      A.add(S[0]);
+      B.add(S[1]);
+    }
+    for (int i = 1; i <= rounds; i++) {
+      A.xor(B).rotateLeft(B).add(S[2 * i]);
+      B.xor(A).rotateLeft(A).add(S[2 * i + 1]);
+    }
+    A.store(out, outOffset);
+    B.store(out, outOffset + wordSize);
+  }
+
+  @Override
+  void decryptBlock(byte[] in, int inOffset, byte[] out, int outOffset) {
+    Word[] words = registers.get();
+    Word A = words[0].load(in, inOffset);
+    Word B = words[1].load(in, inOffset + wordSize);
+    for (int i = rounds; i > 0; i--) {
+      B.subtract(S[2 * i + 1]).rotateRight(A).xor(A);
+      A.subtract(S[2 * i]).rotateRight(B).xor(B);
+    }
+    if (rounds > 0) {
+      B.subtract(S[1]);
+      A.subtract(S[0]);
+    }
+    A.store(out, outOffset);
+    B.store(out, outOffset + wordSize);
+  }
+}
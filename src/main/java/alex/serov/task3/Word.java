@@ -0,0 +1,92 @@
+package alex.serov.task3;
+
+import java.math.BigInteger;
+
+/**
+ * Изменяемое слово фиксированной ширины w бит для арифметики RC5 по модулю 2^w. Операции
+ * изменяют слово на месте и возвращают его же, поэтому раунды можно записывать цепочками без
+ * выделения памяти. Для 8, 16, 32 и 64 бит слова хранятся в примитивах, 128-битное слово - в паре
+ * long; другие ширины обслуживает {@link BigWord} поверх {@link ExpBigInt}. Операнды должны
+ * иметь ту же ширину.
+ */
+public abstract class Word {
+
+  /**
+   * @param width ширина слова в битах, кратная 8.
+   * @return нулевое слово.
+   */
+  public static Word create(int width) {
+    return switch (width) {
+      case 8 -> new Word8();
+      case 16 -> new Word16();
+      case 32 -> new Word32();
+      case 64 -> new Word64();
+      case 128 -> new Word128();
+      default -> new BigWord(width);
+    };
+  }
+
+  public abstract int getWidth();
+
+  /**
+   * @return размер слова в байтах.
+   */
+  public int getByteSize() {
+    return getWidth() / Byte.SIZE;
+  }
+
+  public abstract Word set(Word other);
+
+  /**
+   * @param value значение, приводимое по модулю 2^w.
+   */
+  public abstract Word set(BigInteger value);
+
+  public abstract Word add(Word other);
+
+  public abstract Word subtract(Word other);
+
+  public abstract Word xor(Word other);
+
+  /**
+   * Циклический сдвиг влево; величина сдвига берется по модулю w.
+   */
+  public abstract Word rotateLeft(int distance);
+
+  public abstract Word rotateRight(int distance);
+
+  /**
+   * Циклический сдвиг влево на значение слова distance по модулю w, как в раундах RC5.
+   */
+  public Word rotateLeft(Word distance) {
+    return rotateLeft(distance.getRotation());
+  }
+
+  public Word rotateRight(Word distance) {
+    return rotateRight(distance.getRotation());
+  }
+
+  /**
+   * @return значение слова по модулю w.
+   */
+  protected abstract int getRotation();
+
+  /**
+   * Читает слово из {@link #getByteSize()} байтов в порядке big-endian.
+   */
+  public abstract Word load(byte[] bytes, int offset);
+
+  /**
+   * Записывает слово в {@link #getByteSize()} байтов в порядке big-endian.
+   */
+  public abstract void store(byte[] bytes, int offset);
+
+  public abstract Word copy();
+
+  public abstract BigInteger toBigInteger();
+
+  @Override
+  public String toString() {
+    return toBigInteger().toString(16);
+  }
+}
@@ -0,0 +1,116 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+
+/**
+ * 128-битное слово из двух long: старшей и младшей половины.
+ */
+final class Word128 extends Word {
+
+  private static final int WIDTH = 128;
+
+  private long high;
+  private long low;
+
+  @Override
+  public int getWidth() {
+    return WIDTH;
+  }
+
+  @Override
+  public Word set(Word other) {
+    Word128 word = (Word128) other;
+    high = word.high;
+    low = word.low;
+    return this;
+  }
+
+  @Override
+  public Word set(BigInteger value) {
+    low = value.longValue();
+    high = value.shiftRight(Long.SIZE).longValue();
+    return this;
+  }
+
+  @Override
+  public Word add(Word other) {
+    Word128 word = (Word128) other;
+    long sum = low + word.low;
+    high += word.high + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+    low = sum;
+    return this;
+  }
+
+  @Override
+  public Word subtract(Word other) {
+    Word128 word = (Word128) other;
+    long borrow = Long.compareUnsigned(low, word.low) < 0 ? 1 : 0;
+    low -= word.low;
+    high -= word.high + borrow;
+    return this;
+  }
+
+  @Override
+  public Word xor(Word other) {
+    Word128 word = (Word128) other;
+    high ^= word.high;
+    low ^= word.low;
+    return this;
+  }
+
+  @Override
+  public Word rotateLeft(int distance) {
+    distance &= WIDTH - 1;
+    if (distance >= Long.SIZE) {
+      long swap = high;
+      high = low;
+      low = swap;
+      distance -= Long.SIZE;
+    }
+    if (distance != 0) {
+      long carry = high >>> (Long.SIZE - distance);
+      high = (high << distance) | (low >>> (Long.SIZE - distance));
+      low = (low << distance) | carry;
+    }
+    return this;
+  }
+
+  @Override
+  public Word rotateRight(int distance) {
+    return rotateLeft(-distance);
+  }
+
+  @Override
+  protected int getRotation() {
+    return (int) low & (WIDTH - 1);
+  }
+
+  @Override
+  public Word load(byte[] bytes, int offset) {
+    high = BitBuffer.getLong(bytes, offset, ByteOrder.BIG_ENDIAN);
+    low = BitBuffer.getLong(bytes, offset + Long.BYTES, ByteOrder.BIG_ENDIAN);
+    return this;
+  }
+
+  @Override
+  public void store(byte[] bytes, int offset) {
+    BitBuffer.putLong(bytes, offset, high, ByteOrder.BIG_ENDIAN);
+    BitBuffer.putLong(bytes, offset + Long.BYTES, low, ByteOrder.BIG_ENDIAN);
+  }
+
+  @Override
+  public Word copy() {
+    Word128 copy = new Word128();
+    copy.high = high;
+    copy.low = low;
+    return copy;
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return new BigInteger(Long.toUnsignedString(high)).shiftLeft(Long.SIZE)
+        .or(new BigInteger(Long.toUnsignedString(low)));
+  }
+}
@@ -0,0 +1,91 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+
+/**
+ * 16-битное слово в младших битах int.
+ */
+final class Word16 extends Word {
+
+  private static final int WIDTH = 16;
+  private static final int MASK = 0xFFFF;
+
+  private int value;
+
+  @Override
+  public int getWidth() {
+    return WIDTH;
+  }
+
+  @Override
+  public Word set(Word other) {
+    value = ((Word16) other).value;
+    return this;
+  }
+
+  @Override
+  public Word set(BigInteger value) {
+    this.value = value.intValue() & MASK;
+    return this;
+  }
+
+  @Override
+  public Word add(Word other) {
+    value = (value + ((Word16) other).value) & MASK;
+    return this;
+  }
+
+  @Override
+  public Word subtract(Word other) {
+    value = (value - ((Word16) other).value) & MASK;
+    return this;
+  }
+
+  @Override
+  public Word xor(Word other) {
+    value ^= ((Word16) other).value;
+    return this;
+  }
+
+  @Override
+  public Word rotateLeft(int distance) {
+    value = BitBuffer.rotateLeft(value, distance, WIDTH);
+    return this;
+  }
+
+  @Override
+  public Word rotateRight(int distance) {
+    value = BitBuffer.rotateRight(value, distance, WIDTH);
+    return this;
+  }
+
+  @Override
+  protected int getRotation() {
+    return value & (WIDTH - 1);
+  }
+
+  @Override
+  public Word load(byte[] bytes, int offset) {
+    value = BitBuffer.getShort(bytes, offset, ByteOrder.BIG_ENDIAN) & MASK;
+    return this;
+  }
+
+  @Override
+  public void store(byte[] bytes, int offset) {
+    BitBuffer.putShort(bytes, offset, (short) value, ByteOrder.BIG_ENDIAN);
+  }
+
+  @Override
+  public Word copy() {
+    Word16 copy = new Word16();
+    copy.value = value;
+    return copy;
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return BigInteger.valueOf(value);
+  }
+}
@@ -0,0 +1,90 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+
+/**
+ * 32-битное слово в int.
+ */
+final class Word32 extends Word {
+
+  private static final int WIDTH = 32;
+
+  private int value;
+
+  @Override
+  public int getWidth() {
+    return WIDTH;
+  }
+
+  @Override
+  public Word set(Word other) {
+    value = ((Word32) other).value;
+    return this;
+  }
+
+  @Override
+  public Word set(BigInteger value) {
+    this.value = value.intValue();
+    return this;
+  }
+
+  @Override
+  public Word add(Word other) {
+    value += ((Word32) other).value;
+    return this;
+  }
+
+  @Override
+  public Word subtract(Word other) {
+    value -= ((Word32) other).value;
+    return this;
+  }
+
+  @Override
+  public Word xor(Word other) {
+    value ^= ((Word32) other).value;
+    return this;
+  }
+
+  @Override
+  public Word rotateLeft(int distance) {
+    value = Integer.rotateLeft(value, distance);
+    return this;
+  }
+
+  @Override
+  public Word rotateRight(int distance) {
+    value = Integer.rotateRight(value, distance);
+    return this;
+  }
+
+  @Override
+  protected int getRotation() {
+    return value & (WIDTH - 1);
+  }
+
+  @Override
+  public Word load(byte[] bytes, int offset) {
+    value = BitBuffer.getInt(bytes, offset, ByteOrder.BIG_ENDIAN);
+    return this;
+  }
+
+  @Override
+  public void store(byte[] bytes, int offset) {
+    BitBuffer.putInt(bytes, offset, value, ByteOrder.BIG_ENDIAN);
+  }
+
+  @Override
+  public Word copy() {
+    Word32 copy = new Word32();
+    copy.value = value;
+    return copy;
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return BigInteger.valueOf(value & 0xFFFFFFFFL);
+  }
+}
@@ -0,0 +1,90 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
+
+/**
+ * 64-битное слово в long.
+ */
+final class Word64 extends Word {
+
+  private static final int WIDTH = 64;
+
+  private long value;
+
+  @Override
+  public int getWidth() {
+    return WIDTH;
+  }
+
+  @Override
+  public Word set(Word other) {
+    value = ((Word64) other).value;
+    return this;
+  }
+
+  @Override
+  public Word set(BigInteger value) {
+    this.value = value.longValue();
+    return this;
+  }
+
+  @Override
+  public Word add(Word other) {
+    value += ((Word64) other).value;
+    return this;
+  }
+
+  @Override
+  public Word subtract(Word other) {
+    value -= ((Word64) other).value;
+    return this;
+  }
+
+  @Override
+  public Word xor(Word other) {
+    value ^= ((Word64) other).value;
+    return this;
+  }
+
+  @Override
+  public Word rotateLeft(int distance) {
+    value = Long.rotateLeft(value, distance);
+    return this;
+  }
+
+  @Override
+  public Word rotateRight(int distance) {
+    value = Long.rotateRight(value, distance);
+    return this;
+  }
+
+  @Override
+  protected int getRotation() {
+    return (int) value & (WIDTH - 1);
+  }
+
+  @Override
+  public Word load(byte[] bytes, int offset) {
+    value = BitBuffer.getLong(bytes, offset, ByteOrder.BIG_ENDIAN);
+    return this;
+  }
+
+  @Override
+  public void store(byte[] bytes, int offset) {
+    BitBuffer.putLong(bytes, offset, value, ByteOrder.BIG_ENDIAN);
+  }
+
+  @Override
+  public Word copy() {
+    Word64 copy = new Word64();
+    copy.value = value;
+    return copy;
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return new BigInteger(Long.toUnsignedString(value));
+  }
+}
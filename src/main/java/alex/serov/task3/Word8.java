@@ -0,0 +1,90 @@
+package alex.serov.task3;
+
+import alex.serov.BitBuffer;
+import java.math.BigInteger;
+
+/**
+ * 8-битное слово в младших битах int.
+ */
+final class Word8 extends Word {
+
+  private static final int WIDTH = 8;
+  private static final int MASK = 0xFF;
+
+  private int value;
+
+  @Override
+  public int getWidth() {
+    return WIDTH;
+  }
+
+  @Override
+  public Word set(Word other) {
+    value = ((Word8) other).value;
+    return this;
+  }
+
+  @Override
+  public Word set(BigInteger value) {
+    this.value = value.intValue() & MASK;
+    return this;
+  }
+
+  @Override
+  public Word add(Word other) {
+    value = (value + ((Word8) other).value) & MASK;
+    return this;
+  }
+
+  @Override
+  public Word subtract(Word other) {
+    value = (value - ((Word8) other).value) & MASK;
+    return this;
+  }
+
+  @Override
+  public Word xor(Word other) {
+    value ^= ((Word8) other).value;
+    return this;
+  }
+
+  @Override
+  public Word rotateLeft(int distance) {
+    value = BitBuffer.rotateLeft(value, distance, WIDTH);
+    return this;
+  }
+
+  @Override
+  public Word rotateRight(int distance) {
+    value = BitBuffer.rotateRight(value, distance, WIDTH);
+    return this;
+  }
+
+  @Override
+  protected int getRotation() {
+    return value & (WIDTH - 1);
+  }
+
+  @Override
+  public Word load(byte[] bytes, int offset) {
+    value = bytes[offset] & MASK;
+    return this;
+  }
+
+  @Override
+  public void store(byte[] bytes, int offset) {
+    bytes[offset] = (byte) value;
+  }
+
+  @Override
+  public Word copy() {
+    Word8 copy = new Word8();
+    copy.value = value;
+    return copy;
+  }
+
+  @Override
+  public BigInteger toBigInteger() {
+    return BigInteger.valueOf(value);
+  }
+}
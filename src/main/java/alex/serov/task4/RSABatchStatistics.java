@@ -0,0 +1,80 @@
+package alex.serov.task4;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики пакетных операций RSA: количество пакетов и сообщений, объем данных, суммарное и
+ * максимальное время пакета. Обновляются без блокировок и пригодны для подбора размера пула.
+ */
+public final class RSABatchStatistics {
+
+  private final LongAdder batches = new LongAdder();
+  private final LongAdder messages = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder nanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+  void record(int messageCount, long byteCount, long elapsedNanos) {
+    batches.increment();
+    messages.add(messageCount);
+    bytes.add(byteCount);
+    nanos.add(elapsedNanos);
+    maxNanos.accumulate(elapsedNanos);
+  }
+
+  public long getBatchCount() {
+    return batches.sum();
+  }
+
+  public long getMessageCount() {
+    return messages.sum();
+  }
+
+  /**
+   * @return суммарная длина входных данных всех пакетов в байтах.
+   */
+  public long getByteCount() {
+    return bytes.sum();
+  }
+
+  public long getTotalTime(TimeUnit unit) {
+    return unit.convert(nanos.sum(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @return средняя задержка пакета в миллисекундах.
+   */
+  public double getAverageLatencyMillis() {
+    long count = batches.sum();
+    return count == 0 ? 0 : nanos.sum() / 1e6 / count;
+  }
+
+  public double getMaxLatencyMillis() {
+    return maxNanos.get() / 1e6;
+  }
+
+  /**
+   * @return количество сообщений в секунду за все время пакетной обработки.
+   */
+  public double getThroughput() {
+    long total = nanos.sum();
+    return total == 0 ? 0 : messages.sum() * 1e9 / total;
+  }
+
+  public void reset() {
+    batches.reset();
+    messages.reset();
+    bytes.reset();
+    nanos.reset();
+    maxNanos.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("batches=%d, messages=%d, bytes=%d, avg=%.3f ms, max=%.3f ms, %.1f msg/s",
+        getBatchCount(), getMessageCount(), getByteCount(), getAverageLatencyMillis(),
+        getMaxLatencyMillis(), getThroughput());
+  }
+}
@@ -0,0 +1,42 @@
+package alex.serov.task4;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Ослепление шифртекста перед дешифрованием: c' = c * r^e mod N, m = m' * r^-1 mod N. Время
+ * возведения в закрытую степень не зависит от самого c. Пара (r^e, r^-1) после каждого
+ * использования возводится в квадрат, что дешевле выбора нового r. Экземпляр не потокобезопасен.
+ */
+final class RSABlinding {
+
+  private final BigInteger modulus;
+  private BigInteger factor;
+  private BigInteger inverse;
+
+  RSABlinding(BigInteger publicExponent, BigInteger modulus, Random random) {
+    this.modulus = modulus;
+    BigInteger r;
+    do {
+      r = new BigInteger(modulus.bitLength(), random);
+    } while (r.compareTo(BigInteger.ONE) <= 0 || r.compareTo(modulus) >= 0
+        || !r.gcd(modulus).equals(BigInteger.ONE));
+    this.factor = r.modPow(publicExponent, modulus);
+    this.inverse = r.modInverse(modulus);
+  }
+
+  /**
+   * Дешифрует c с ослеплением.
+   *
+   * @param ciphertext число из [0, N).
+   * @param privateKey закрытый ключ.
+   * @return открытый текст.
+   */
+  BigInteger decrypt(BigInteger ciphertext, RSAPrivateKey privateKey) {
+    BigInteger blinded = privateKey.decrypt(ciphertext.multiply(factor).mod(modulus));
+    BigInteger plaintext = blinded.multiply(inverse).mod(modulus);
+    factor = factor.multiply(factor).mod(modulus);
+    inverse = inverse.multiply(inverse).mod(modulus);
+    return plaintext;
+  }
+}
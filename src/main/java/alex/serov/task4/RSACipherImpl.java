@@ -1,57 +1,288 @@
 package alex.serov.task4;
 
 import alex.serov.Cipher;
+import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
-import java.util.Random;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 
 public class RSACipherImpl implements Cipher {
 
+  /**
+   * Количество сообщений пакета, обрабатываемых одной задачей.
+   */
+  public static final int BATCH_SLICE = 32;
+  private static final SecureRandom RANDOM = new SecureRandom();
+
   private final BigInteger N;
-  private BigInteger e;
-  private final BigInteger d;
+  private final BigInteger e;
+  private final RSAPrivateKey privateKey;
+  private final RSABatchStatistics encryptStatistics = new RSABatchStatistics();
+  private final RSABatchStatistics decryptStatistics = new RSABatchStatistics();
 
+  /**
+   * Шифр со свежей парой ключей из {@link RSAKeyPool#shared() общего пула}.
+   */
   public RSACipherImpl() {
-    Random r = new Random();
-    int maxLength = 1024;
-    BigInteger p = BigInteger.probablePrime(maxLength, r);
-    BigInteger q = BigInteger.probablePrime(maxLength, r);
-    N = p.multiply(q);
-    BigInteger PHI = p.subtract(BigInteger.ONE).multiply(q.subtract(BigInteger.ONE));
-    e = BigInteger.probablePrime(maxLength / 2, r);
-    while (PHI.gcd(e).compareTo(BigInteger.ONE) > 0 && e.compareTo(PHI) < 0) {
-      e = e.add(BigInteger.ONE);
-    }
-    d = e.modInverse(PHI);
+    this(RSAKeyPool.shared().take());
+  }
+
+  public RSACipherImpl(RSAKeyPair keyPair) {
+    this(keyPair.getPublicExponent(), keyPair.getPrivateKey());
   }
 
+  /**
+   * Шифр без параметров CRT: дешифрование выполняется полным возведением в степень d по модулю N.
+   */
   public RSACipherImpl(BigInteger e, BigInteger d, BigInteger N) {
+    this(e, new RSAPrivateKey(N, d));
+  }
+
+  public RSACipherImpl(BigInteger e, RSAPrivateKey privateKey) {
     this.e = e;
-    this.d = d;
-    this.N = N;
+    this.privateKey = privateKey;
+    this.N = privateKey.getModulus();
+  }
+
+  /**
+   * @return длина модуля N в байтах, равная длине блока шифртекста.
+   */
+  private int getModulusLength() {
+    return (N.bitLength() + 7) / 8;
   }
 
-  private static String bToS(byte[] cipher) {
-    StringBuilder temp = new StringBuilder();
-    for (byte b : cipher) {
-      temp.append(b);
+  /**
+   * @return количество байтов сообщения, помещающихся в один блок с дополнением OAEP.
+   */
+  private int getBlockCapacity() {
+    int capacity = RSAOaep.getCapacity(getModulusLength());
+    if (capacity <= 0) {
+      throw new IllegalStateException("Modulus is too small for OAEP padding.");
     }
-    return temp.toString();
+    return capacity;
+  }
+
+  /**
+   * Представляет неотрицательное число ровно length байтами в порядке big-endian.
+   */
+  private static byte[] toUnsigned(BigInteger value, int length) {
+    byte[] bytes = value.toByteArray();
+    if (bytes.length == length) {
+      return bytes;
+    }
+    byte[] result = new byte[length];
+    int skip = Math.max(0, bytes.length - length);
+    System.arraycopy(bytes, skip, result, length - bytes.length + skip, bytes.length - skip);
+    return result;
+  }
+
+  private byte[] encryptBlock(byte[] message, int offset, int length) {
+    int blockLength = getModulusLength();
+    BigInteger plaintext = new BigInteger(1, RSAOaep.pad(message, offset, length, blockLength));
+    return toUnsigned(plaintext.modPow(e, N), blockLength);
+  }
+
+  /**
+   * @param blinding ослепление или null, если дешифровать напрямую.
+   */
+  private byte[] decryptBlock(byte[] ciphertext, int offset, RSABlinding blinding) {
+    int blockLength = getModulusLength();
+    BigInteger value = new BigInteger(1, ciphertext, offset, blockLength);
+    if (value.compareTo(N) >= 0) {
+      throw new IllegalArgumentException("Ciphertext block is out of range.");
+    }
+    BigInteger plaintext =
+        blinding == null ? privateKey.decrypt(value) : blinding.decrypt(value, privateKey);
+    return RSAOaep.unpad(toUnsigned(plaintext, blockLength));
+  }
+
+  /**
+   * Независимые блоки обрабатываются параллельно, если их больше одного.
+   */
+  private static IntStream blockIndexes(int blocks) {
+    IntStream indexes = IntStream.range(0, blocks);
+    return blocks > 1 ? indexes.parallel() : indexes;
+  }
+
+  /**
+   * Сообщение делится на части по {@link #getBlockCapacity()} байтов, каждая дополняется OAEP и
+   * шифруется в отдельный блок длиной в модуль. Пустое сообщение занимает один блок.
+   */
+  @Override
+  public int encrypt(ByteBuffer src, ByteBuffer dst) {
+    byte[] message = new byte[src.remaining()];
+    src.get(message);
+    int capacity = getBlockCapacity();
+    int length = getEncryptedSize(message.length);
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    byte[][] blocks = new byte[length / getModulusLength()][];
+    blockIndexes(blocks.length).forEach(i -> {
+      int offset = i * capacity;
+      blocks[i] = encryptBlock(message, offset, Math.min(capacity, message.length - offset));
+    });
+    for (byte[] block : blocks) {
+      dst.put(block);
+    }
+    return length;
   }
 
+  @Override
+  public int decrypt(ByteBuffer src, ByteBuffer dst) {
+    int blockLength = getModulusLength();
+    if (src.remaining() % blockLength != 0) {
+      throw new IllegalArgumentException("Ciphertext length is not a multiple of the modulus.");
+    }
+    byte[] ciphertext = new byte[src.remaining()];
+    src.get(ciphertext);
+    byte[][] blocks = new byte[ciphertext.length / blockLength][];
+    blockIndexes(blocks.length)
+        .forEach(i -> blocks[i] = decryptBlock(ciphertext, i * blockLength, null));
+    int length = 0;
+    for (byte[] block : blocks) {
+      length += block.length;
+    }
+    if (dst.remaining() < length) {
+      throw new BufferOverflowException();
+    }
+    for (byte[] block : blocks) {
+      dst.put(block);
+    }
+    return length;
+  }
+
+  @Override
+  public int getEncryptedSize(int length) {
+    int capacity = getBlockCapacity();
+    int blocks = Math.max(1, (length + capacity - 1) / capacity);
+    return Math.multiplyExact(blocks, getModulusLength());
+  }
+
+  @Override
+  public int getDecryptedSize(int length) {
+    return length / getModulusLength() * getBlockCapacity();
+  }
+
+  /**
+   * Сообщение кодируется в UTF-8, двоичный шифртекст представляется в Base64.
+   */
   @Override
   public String encrypt(String message) {
-    byte[] messageBytes = message.getBytes();
-    BigInteger plaintext = new BigInteger(messageBytes);
-    BigInteger ciphertext = plaintext.modPow(e, N);
-    return ciphertext.toString();
+    return Base64.getEncoder().encodeToString(encrypt(message.getBytes(StandardCharsets.UTF_8)));
   }
 
   @Override
   public String decrypt(String message) {
-    BigInteger ciphertext = new BigInteger(message);
-    BigInteger plaintext = ciphertext.modPow(d, N);
-    byte[] plainBytes = plaintext.toByteArray();
-    return new String(plainBytes);
+    return new String(decrypt(Base64.getDecoder().decode(message)), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Шифрует каждое сообщение пакета так же, как {@link #encrypt(byte[])}, в общем пуле ForkJoin.
+   *
+   * @param messages сообщения.
+   * @return шифртексты в том же порядке.
+   */
+  public List<byte[]> encryptAll(List<byte[]> messages) {
+    return encryptAll(messages, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Шифрует каждое сообщение пакета. Пакет делится на части по {@link #BATCH_SLICE} сообщений,
+   * каждая часть выполняется одной задачей исполнителя.
+   *
+   * @param messages сообщения.
+   * @param executor исполнитель задач, например пул ForkJoin или пул потоков.
+   * @return шифртексты в том же порядке.
+   */
+  public List<byte[]> encryptAll(List<byte[]> messages, Executor executor) {
+    return transformAll(messages, executor, () -> this::encrypt, encryptStatistics);
+  }
+
+  public List<byte[]> decryptAll(List<byte[]> ciphertexts) {
+    return decryptAll(ciphertexts, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Дешифрует каждый шифртекст пакета с ослеплением и, если ключ их содержит, с параметрами CRT.
+   * Каждая часть пакета использует собственную пару ослепления, обновляемую возведением в квадрат.
+   *
+   * @param ciphertexts шифртексты.
+   * @param executor    исполнитель задач.
+   * @return открытые тексты в том же порядке.
+   */
+  public List<byte[]> decryptAll(List<byte[]> ciphertexts, Executor executor) {
+    return transformAll(ciphertexts, executor, () -> {
+      RSABlinding blinding = new RSABlinding(e, N, RANDOM);
+      return ciphertext -> decryptMessage(ciphertext, blinding);
+    }, decryptStatistics);
+  }
+
+  public RSABatchStatistics getEncryptStatistics() {
+    return encryptStatistics;
+  }
+
+  public RSABatchStatistics getDecryptStatistics() {
+    return decryptStatistics;
+  }
+
+  /**
+   * Последовательное дешифрование сообщения внутри задачи пакета.
+   */
+  private byte[] decryptMessage(byte[] ciphertext, RSABlinding blinding) {
+    int blockLength = getModulusLength();
+    if (ciphertext.length % blockLength != 0) {
+      throw new IllegalArgumentException("Ciphertext length is not a multiple of the modulus.");
+    }
+    ByteArrayOutputStream plaintext =
+        new ByteArrayOutputStream(getDecryptedSize(ciphertext.length));
+    for (int offset = 0; offset < ciphertext.length; offset += blockLength) {
+      plaintext.writeBytes(decryptBlock(ciphertext, offset, blinding));
+    }
+    return plaintext.toByteArray();
+  }
+
+  private List<byte[]> transformAll(List<byte[]> inputs, Executor executor,
+      Supplier<UnaryOperator<byte[]>> operations, RSABatchStatistics statistics) {
+    long start = System.nanoTime();
+    byte[][] outputs = new byte[inputs.size()][];
+    List<CompletableFuture<Void>> tasks = new ArrayList<>();
+    for (int from = 0; from < outputs.length; from += BATCH_SLICE) {
+      int begin = from;
+      int end = Math.min(outputs.length, from + BATCH_SLICE);
+      tasks.add(CompletableFuture.runAsync(() -> {
+        UnaryOperator<byte[]> operation = operations.get();
+        for (int i = begin; i < end; i++) {
+          outputs[i] = operation.apply(inputs.get(i));
+        }
+      }, executor));
+    }
+    try {
+      CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException exception) {
+      if (exception.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw exception;
+    }
+    long bytes = 0;
+    for (byte[] input : inputs) {
+      bytes += input.length;
+    }
+    statistics.record(outputs.length, bytes, System.nanoTime() - start);
+    return List.of(outputs);
   }
 
   public static void main(String[] arguments) {
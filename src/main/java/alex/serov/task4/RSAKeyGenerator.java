@@ -0,0 +1,100 @@
+package alex.serov.task4;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Генератор ключей RSA. Простые множители p и q ищутся одновременно: p в переданном исполнителе,
+ * q в вызывающем потоке. Открытый показатель фиксирован, поэтому вместо подбора e отбрасываются
+ * простые, для которых p - 1 не взаимно просто с e. Каждый множитель не меньше sqrt(2) * 2^(b-1),
+ * так что модуль всегда имеет ровно заданную длину. Генератор потокобезопасен.
+ */
+public final class RSAKeyGenerator {
+
+  public static final BigInteger DEFAULT_PUBLIC_EXPONENT = BigInteger.valueOf(65537);
+  public static final int DEFAULT_MODULUS_LENGTH = 2048;
+  public static final int MIN_MODULUS_LENGTH = 1024;
+
+  private final int modulusLength;
+  private final BigInteger publicExponent;
+  private final Random random;
+  private final Executor executor;
+
+  private RSAKeyGenerator(int modulusLength, BigInteger publicExponent, Random random,
+      Executor executor) {
+    this.modulusLength = modulusLength;
+    this.publicExponent = publicExponent;
+    this.random = random;
+    this.executor = executor;
+  }
+
+  /**
+   * @return генератор ключей длиной {@link #DEFAULT_MODULUS_LENGTH} бит.
+   */
+  public static RSAKeyGenerator createInstance() {
+    return createInstance(DEFAULT_MODULUS_LENGTH);
+  }
+
+  public static RSAKeyGenerator createInstance(int modulusLength) {
+    return createInstance(modulusLength, DEFAULT_PUBLIC_EXPONENT, new SecureRandom(),
+        ForkJoinPool.commonPool());
+  }
+
+  /**
+   * @param modulusLength  длина модуля N в битах, не меньше {@link #MIN_MODULUS_LENGTH}.
+   * @param publicExponent нечетный открытый показатель больше 1.
+   * @param random         источник случайности.
+   * @param executor       исполнитель, в котором ищется первый простой множитель.
+   * @return генератор ключей.
+   */
+  public static RSAKeyGenerator createInstance(int modulusLength, BigInteger publicExponent,
+      Random random, Executor executor) {
+    if (modulusLength < MIN_MODULUS_LENGTH) {
+      throw new IllegalArgumentException(
+          "Modulus length should be at least " + MIN_MODULUS_LENGTH + " bits.");
+    }
+    if (publicExponent.compareTo(BigInteger.ONE) <= 0 || !publicExponent.testBit(0)) {
+      throw new IllegalArgumentException("Public exponent should be odd and greater than 1.");
+    }
+    return new RSAKeyGenerator(modulusLength, publicExponent, random, executor);
+  }
+
+  public int getModulusLength() {
+    return modulusLength;
+  }
+
+  public BigInteger getPublicExponent() {
+    return publicExponent;
+  }
+
+  /**
+   * @return новая пара ключей с параметрами CRT.
+   */
+  public RSAKeyPair generate() {
+    int pLength = (modulusLength + 1) / 2;
+    int qLength = modulusLength - pLength;
+    CompletableFuture<BigInteger> p =
+        CompletableFuture.supplyAsync(() -> findPrime(pLength), executor);
+    BigInteger q = findPrime(qLength);
+    BigInteger first = p.join();
+    while (first.equals(q)) {
+      q = findPrime(qLength);
+    }
+    return new RSAKeyPair(publicExponent, RSAPrivateKey.fromPrimes(first, q, publicExponent));
+  }
+
+  private BigInteger findPrime(int length) {
+    BigInteger lowerBound = BigInteger.ONE.shiftLeft(2 * length - 1).sqrt().add(BigInteger.ONE);
+    while (true) {
+      BigInteger candidate = BigInteger.probablePrime(length, random);
+      if (candidate.compareTo(lowerBound) >= 0
+          && candidate.subtract(BigInteger.ONE).gcd(publicExponent).equals(BigInteger.ONE)) {
+        return candidate;
+      }
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package alex.serov.task4;
+
+import java.math.BigInteger;
+
+/**
+ * Пара ключей RSA: открытый показатель e и закрытый ключ, содержащий модуль N.
+ */
+public final class RSAKeyPair {
+
+  private final BigInteger publicExponent;
+  private final RSAPrivateKey privateKey;
+
+  public RSAKeyPair(BigInteger publicExponent, RSAPrivateKey privateKey) {
+    this.publicExponent = publicExponent;
+    this.privateKey = privateKey;
+  }
+
+  public BigInteger getModulus() {
+    return privateKey.getModulus();
+  }
+
+  public BigInteger getPublicExponent() {
+    return publicExponent;
+  }
+
+  public RSAPrivateKey getPrivateKey() {
+    return privateKey;
+  }
+}
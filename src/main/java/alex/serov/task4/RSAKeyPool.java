@@ -0,0 +1,86 @@
+package alex.serov.task4;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Пул заранее сгенерированных пар ключей RSA. Фоновый поток-демон держит очередь заполненной, так
+ * что {@link #take()} обычно возвращает готовую пару сразу; если очередь пуста, пара генерируется
+ * в вызывающем потоке. Каждая пара выдается не более одного раза.
+ */
+public final class RSAKeyPool implements AutoCloseable {
+
+  public static final int DEFAULT_CAPACITY = 4;
+
+  private final RSAKeyGenerator generator;
+  private final BlockingQueue<RSAKeyPair> keyPairs;
+  private final Thread refiller;
+
+  private RSAKeyPool(RSAKeyGenerator generator, int capacity) {
+    this.generator = generator;
+    this.keyPairs = new ArrayBlockingQueue<>(capacity);
+    this.refiller = new Thread(this::refill, "rsa-key-pool");
+    refiller.setDaemon(true);
+  }
+
+  /**
+   * @param generator генератор, которым пополняется пул.
+   * @param capacity  количество пар, которое пул держит наготове.
+   * @return запущенный пул.
+   */
+  public static RSAKeyPool createInstance(RSAKeyGenerator generator, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity should be positive.");
+    }
+    RSAKeyPool pool = new RSAKeyPool(generator, capacity);
+    pool.refiller.start();
+    return pool;
+  }
+
+  /**
+   * @return общий пул ключей длиной {@link RSAKeyGenerator#DEFAULT_MODULUS_LENGTH} бит, который
+   *     создается при первом обращении.
+   */
+  public static RSAKeyPool shared() {
+    return Shared.INSTANCE;
+  }
+
+  /**
+   * @return готовая пара ключей из пула или новая, если пул пуст.
+   */
+  public RSAKeyPair take() {
+    RSAKeyPair keyPair = keyPairs.poll();
+    return keyPair != null ? keyPair : generator.generate();
+  }
+
+  /**
+   * @return количество готовых пар.
+   */
+  public int size() {
+    return keyPairs.size();
+  }
+
+  /**
+   * Останавливает фоновое пополнение. Оставшиеся пары по-прежнему выдаются.
+   */
+  @Override
+  public void close() {
+    refiller.interrupt();
+  }
+
+  private void refill() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        keyPairs.put(generator.generate());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class Shared {
+
+    static final RSAKeyPool INSTANCE =
+        createInstance(RSAKeyGenerator.createInstance(), DEFAULT_CAPACITY);
+  }
+}
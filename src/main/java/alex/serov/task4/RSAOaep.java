@@ -0,0 +1,112 @@
+package alex.serov.task4;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Дополнение OAEP (PKCS #1 v2.2) с хеш-функцией SHA-256, MGF1 на той же функции и пустой меткой.
+ * Блок длиной k байтов вмещает до k - 66 байтов сообщения. Совместимо с JCE "RSA/ECB/OAEPPadding"
+ * с OAEPParameterSpec для SHA-256 и MGF1ParameterSpec.SHA256; преобразование
+ * "OAEPWithSHA-256AndMGF1Padding" по умолчанию использует MGF1 на SHA-1.
+ */
+final class RSAOaep {
+
+  static final int HASH_LENGTH = 32;
+  // Хеш пустой метки.
+  private static final byte[] LABEL_HASH = sha256().digest();
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private RSAOaep() {
+  }
+
+  /**
+   * @param blockLength длина блока (модуля) в байтах.
+   * @return максимальная длина сообщения в одном блоке.
+   */
+  static int getCapacity(int blockLength) {
+    return blockLength - 2 * HASH_LENGTH - 2;
+  }
+
+  /**
+   * Дополняет сообщение до блока длиной blockLength байтов.
+   */
+  static byte[] pad(byte[] message, int offset, int length, int blockLength) {
+    if (length > getCapacity(blockLength)) {
+      throw new IllegalArgumentException("Сообщение не помещается в блок.");
+    }
+    byte[] block = new byte[blockLength];
+    int dbOffset = 1 + HASH_LENGTH;
+    int dbLength = blockLength - dbOffset;
+    byte[] seed = new byte[HASH_LENGTH];
+    RANDOM.nextBytes(seed);
+    System.arraycopy(LABEL_HASH, 0, block, dbOffset, HASH_LENGTH);
+    block[blockLength - length - 1] = 1;
+    System.arraycopy(message, offset, block, blockLength - length, length);
+    System.arraycopy(seed, 0, block, 1, HASH_LENGTH);
+    // maskedDB = DB ^ MGF(seed), затем maskedSeed = seed ^ MGF(maskedDB).
+    mask(block, 1, HASH_LENGTH, block, dbOffset, dbLength);
+    mask(block, dbOffset, dbLength, block, 1, HASH_LENGTH);
+    return block;
+  }
+
+  /**
+   * Снимает дополнение с блока.
+   *
+   * @return сообщение.
+   * @throws IllegalArgumentException если блок не является корректно дополненным.
+   */
+  static byte[] unpad(byte[] block) {
+    int blockLength = block.length;
+    int dbOffset = 1 + HASH_LENGTH;
+    int dbLength = blockLength - dbOffset;
+    // seed = maskedSeed ^ MGF(maskedDB), затем DB = maskedDB ^ MGF(seed).
+    mask(block, dbOffset, dbLength, block, 1, HASH_LENGTH);
+    mask(block, 1, HASH_LENGTH, block, dbOffset, dbLength);
+    // Проверки объединяются, чтобы не раскрывать, какая из них не прошла.
+    int bad = block[0];
+    for (int i = 0; i < HASH_LENGTH; i++) {
+      bad |= block[dbOffset + i] ^ LABEL_HASH[i];
+    }
+    int separator = -1;
+    for (int i = dbOffset + HASH_LENGTH; i < blockLength; i++) {
+      if (separator < 0 && block[i] != 0) {
+        separator = i;
+      }
+    }
+    if (bad != 0 || separator < 0 || block[separator] != 1) {
+      throw new IllegalArgumentException("Ошибка дешифрования.");
+    }
+    return Arrays.copyOfRange(block, separator + 1, blockLength);
+  }
+
+  /**
+   * Складывает target[targetOffset..targetOffset + targetLength) с маской MGF1 от
+   * seed[seedOffset..seedOffset + seedLength).
+   */
+  private static void mask(byte[] seed, int seedOffset, int seedLength,
+      byte[] target, int targetOffset, int targetLength) {
+    MessageDigest digest = sha256();
+    byte[] counter = new byte[4];
+    for (int done = 0, i = 0; done < targetLength; i++) {
+      counter[0] = (byte) (i >>> 24);
+      counter[1] = (byte) (i >>> 16);
+      counter[2] = (byte) (i >>> 8);
+      counter[3] = (byte) i;
+      digest.update(seed, seedOffset, seedLength);
+      byte[] hash = digest.digest(counter);
+      for (int j = 0; j < hash.length && done < targetLength; j++, done++) {
+        target[targetOffset + done] ^= hash[j];
+      }
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
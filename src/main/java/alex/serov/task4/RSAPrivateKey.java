@@ -0,0 +1,88 @@
+package alex.serov.task4;
+
+import java.math.BigInteger;
+
+/**
+ * Закрытый ключ RSA. Помимо модуля N и показателя d может хранить параметры китайской теоремы об
+ * остатках: простые p и q, dP = d mod (p - 1), dQ = d mod (q - 1) и qInv = q^-1 mod p. С ними
+ * дешифрование сводится к двум возведениям в степень по модулям половинной длины.
+ */
+public final class RSAPrivateKey {
+
+  private final BigInteger modulus;
+  private final BigInteger exponent;
+  private final BigInteger p;
+  private final BigInteger q;
+  private final BigInteger dP;
+  private final BigInteger dQ;
+  private final BigInteger qInv;
+
+  /**
+   * Ключ без параметров CRT; дешифрование выполняется возведением в степень d по модулю N.
+   *
+   * @param modulus  модуль N.
+   * @param exponent закрытый показатель d.
+   */
+  public RSAPrivateKey(BigInteger modulus, BigInteger exponent) {
+    this(modulus, exponent, null, null, null, null, null);
+  }
+
+  private RSAPrivateKey(BigInteger modulus, BigInteger exponent, BigInteger p, BigInteger q,
+      BigInteger dP, BigInteger dQ, BigInteger qInv) {
+    this.modulus = modulus;
+    this.exponent = exponent;
+    this.p = p;
+    this.q = q;
+    this.dP = dP;
+    this.dQ = dQ;
+    this.qInv = qInv;
+  }
+
+  /**
+   * Строит ключ с параметрами CRT по простым множителям модуля.
+   *
+   * @param p              первый простой множитель.
+   * @param q              второй простой множитель, отличный от p.
+   * @param publicExponent открытый показатель e.
+   * @return закрытый ключ.
+   */
+  public static RSAPrivateKey fromPrimes(BigInteger p, BigInteger q, BigInteger publicExponent) {
+    if (p.equals(q)) {
+      throw new IllegalArgumentException("p и q должны различаться.");
+    }
+    BigInteger pMinusOne = p.subtract(BigInteger.ONE);
+    BigInteger qMinusOne = q.subtract(BigInteger.ONE);
+    BigInteger d = publicExponent.modInverse(pMinusOne.multiply(qMinusOne));
+    return new RSAPrivateKey(p.multiply(q), d, p, q,
+        d.mod(pMinusOne), d.mod(qMinusOne), q.modInverse(p));
+  }
+
+  public BigInteger getModulus() {
+    return modulus;
+  }
+
+  public BigInteger getExponent() {
+    return exponent;
+  }
+
+  public boolean hasCrtParameters() {
+    return p != null;
+  }
+
+  /**
+   * Вычисляет c^d mod N. При наличии параметров CRT результат собирается по формуле Гарнера из
+   * m1 = c^dP mod p и m2 = c^dQ mod q.
+   *
+   * @param ciphertext число из [0, N).
+   * @return открытый текст.
+   */
+  public BigInteger decrypt(BigInteger ciphertext) {
+    if (p == null) {
+      return ciphertext.modPow(exponent, modulus);
+    }
+    BigInteger m1 = ciphertext.mod(p).modPow(dP, p);
+    BigInteger m2 = ciphertext.mod(q).modPow(dQ, q);
+    BigInteger h = qInv.multiply(m1.subtract(m2)).mod(p);
+    return m2.add(h.multiply(q));
+  }
+}